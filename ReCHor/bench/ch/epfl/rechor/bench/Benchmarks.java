@@ -0,0 +1,39 @@
+package ch.epfl.rechor.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the project with the GC profiler, which reports the
+ * allocation rate of each benchmark along with its time.
+ * <p>
+ * The benchmarks are run from the directory containing the flattened timetable (see
+ * {@link TimeTableState}), and need annotation processing to be enabled for the
+ * {@code bench} sources so that the JMH generator can produce the benchmark classes.
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    /**
+     * @param args the regular expressions selecting the benchmarks, all of them if empty
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(Benchmarks.class.getPackageName() + ".*Benchmark");
+        }
+        for (String include : args) {
+            options.include(include);
+        }
+        Options built = options
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        new Runner(built).run();
+    }
+}
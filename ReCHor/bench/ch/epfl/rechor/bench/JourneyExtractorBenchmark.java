@@ -0,0 +1,55 @@
+package ch.epfl.rechor.bench;
+
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyExtractor;
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the extraction of the journeys of a profile from the departure station,
+ * all of them or only the ones departing in a time window
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JourneyExtractorBenchmark {
+
+    private Profile profile;
+
+    @Setup
+    public void setUp(TimeTableState state) {
+        profile = new Router(state.timeTable).profile(state.queryDate, state.arrStationId);
+    }
+
+    @Benchmark
+    public List<Journey> journeys(TimeTableState state) {
+        return JourneyExtractor.journeys(profile, state.depStationId);
+    }
+
+    @Benchmark
+    public List<Journey> journeysAroundNoon(TimeTableState state) {
+        List<JourneyExtractor.Handle> handles = JourneyExtractor.handles(profile, state.depStationId, 11 * 60, 13 * 60);
+        List<Journey> journeys = new ArrayList<>(handles.size());
+        for (JourneyExtractor.Handle handle : handles) {
+            journeys.add(JourneyExtractor.journey(profile, state.depStationId, handle));
+        }
+        return journeys;
+    }
+}
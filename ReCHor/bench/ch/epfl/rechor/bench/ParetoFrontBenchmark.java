@@ -0,0 +1,74 @@
+package ch.epfl.rechor.bench;
+
+import ch.epfl.rechor.journey.PackedCriteria;
+import ch.epfl.rechor.journey.ParetoFront;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the addition of tuples to a Pareto front builder, with departure times
+ * like the station fronts of a profile, at sizes found in real profiles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ParetoFrontBenchmark {
+
+    /**
+     * The number of tuples added
+     */
+    @Param({"16", "64", "256"})
+    public int tupleCount;
+
+    private long[] tuples;
+    private ParetoFront.Builder builder;
+    private ParetoFront.Builder filled;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(2025);
+        tuples = new long[tupleCount];
+        for (int i = 0; i < tupleCount; i++) {
+            int depMins = 1200 - i * 4;
+            int arrMins = depMins + 20 + rng.nextInt(90);
+            long tuple = PackedCriteria.pack(arrMins, rng.nextInt(6), rng.nextInt(1 << 24) << 8);
+            tuples[i] = PackedCriteria.withDepMins(tuple, depMins);
+        }
+        builder = new ParetoFront.Builder();
+        filled = new ParetoFront.Builder();
+        for (long tuple : tuples) {
+            filled.add(tuple);
+        }
+    }
+
+    @Benchmark
+    public ParetoFront.Builder add() {
+        builder.clear();
+        for (long tuple : tuples) {
+            builder.add(tuple);
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public ParetoFront.Builder addAll() {
+        builder.clear();
+        builder.add(tuples[tupleCount / 2]);
+        return builder.addAll(filled);
+    }
+}
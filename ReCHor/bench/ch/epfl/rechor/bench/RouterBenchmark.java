@@ -0,0 +1,49 @@
+package ch.epfl.rechor.bench;
+
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.Router;
+import ch.epfl.rechor.journey.RouterWorkspace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the computation of a profile by the router, with and without a
+ * reused workspace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class RouterBenchmark {
+
+    private Router router;
+    private RouterWorkspace workspace;
+
+    @Setup
+    public void setUp(TimeTableState state) {
+        router = new Router(state.timeTable);
+        workspace = new RouterWorkspace();
+    }
+
+    @Benchmark
+    public Profile profile(TimeTableState state) {
+        return router.profile(state.queryDate, state.arrStationId);
+    }
+
+    @Benchmark
+    public Profile profileWithWorkspace(TimeTableState state) {
+        return router.profile(state.queryDate, state.arrStationId, workspace);
+    }
+}
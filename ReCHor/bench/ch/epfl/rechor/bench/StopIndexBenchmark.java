@@ -0,0 +1,84 @@
+package ch.epfl.rechor.bench;
+
+import ch.epfl.rechor.StopIndex;
+import ch.epfl.rechor.timetable.StationAliases;
+import ch.epfl.rechor.timetable.Stations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the search of the stops matching a query, as typed in the stop fields
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class StopIndexBenchmark {
+
+    /**
+     * The query, from a single letter to several words
+     */
+    @Param({"l", "laus", "mez vil", "ecublens epfl"})
+    public String query;
+
+    private StopIndex stopIndex;
+
+    @Setup
+    public void setUp(TimeTableState state) {
+        Stations stations = state.timeTable.stations();
+        StationAliases aliases = state.timeTable.stationAliases();
+        List<String> stopNames = new ArrayList<>(stations.size());
+        for (int i = 0; i < stations.size(); i++) {
+            stopNames.add(stations.name(i));
+        }
+        Map<String, String> altNames = new HashMap<>();
+        for (int i = 0; i < aliases.size(); i++) {
+            altNames.put(aliases.alias(i), aliases.stationName(i));
+        }
+        stopIndex = new StopIndex(stopNames, altNames);
+    }
+
+    @Benchmark
+    public List<String> stopsMatching() {
+        return stopIndex.stopsMatching(query, 30);
+    }
+
+    /**
+     * Searches every prefix of the query, as the stop fields do while it is typed
+     */
+    @Benchmark
+    public List<String> typed() {
+        List<String> results = List.of();
+        for (int i = 1; i <= query.length(); i++) {
+            results = stopIndex.stopsMatching(query.substring(0, i), 30);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<String> typedInASession() {
+        StopIndex.Session session = stopIndex.session();
+        List<String> results = List.of();
+        for (int i = 1; i <= query.length(); i++) {
+            results = session.stopsMatching(query.substring(0, i), 30);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,73 @@
+package ch.epfl.rechor.bench;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * The timetable shared by the benchmarks, loaded once per trial, with the date and the
+ * stations of the queries
+ */
+@State(Scope.Benchmark)
+public class TimeTableState {
+
+    /**
+     * The directory of the flattened timetable, relative to the working directory
+     */
+    @Param("timetable")
+    public String directory;
+
+    /**
+     * The date of the queries
+     */
+    @Param("2025-03-18")
+    public String date;
+
+    /**
+     * The names of the departure and arrival stations of the queries
+     */
+    @Param("Ecublens VD, EPFL")
+    public String depStationName;
+    @Param("Gruyères")
+    public String arrStationName;
+
+    public TimeTable timeTable;
+    public LocalDate queryDate;
+    public int depStationId;
+    public int arrStationId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        timeTable = new CachedTimeTable(FileTimeTable.in(Path.of(directory)));
+        queryDate = LocalDate.parse(date);
+        depStationId = stationId(timeTable.stations(), depStationName);
+        arrStationId = stationId(timeTable.stations(), arrStationName);
+        // Loads the connections of the date, so that the first iteration does not pay for it
+        timeTable.compiledConnectionsFor(queryDate);
+    }
+
+    /**
+     * @param stations    the stations of the timetable
+     * @param stationName the name of a station
+     * @return the index of the station with the given name
+     * @throws IllegalArgumentException if there is no such station
+     */
+    static int stationId(Stations stations, String stationName) {
+        for (int i = 0; i < stations.size(); i++) {
+            if (stations.name(i).equals(stationName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(stationName);
+    }
+}
@@ -1,15 +1,22 @@
 package ch.epfl.rechor;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A searchable index of stop names, which is immutable
+ * <p>
+ * The names and aliases are indexed by their n-grams of up to {@link #GRAM_LENGTH}
+ * characters, with accents and case removed, so that a query is only matched against
+ * the names containing all the n-grams of its subqueries. Their folded forms are also
+ * kept, so that a subquery is searched in them with {@link String#indexOf(String)}
+ * rather than with a regular expression. A {@link Session} follows a query as it is
+ * typed, and only searches the names matching its previous query when it is extended.
  * @author Karam Fakhouri (374510)
  */
 public final class StopIndex {
@@ -33,6 +40,37 @@ public final class StopIndex {
     );
 
 
+    /**
+     * The maximum length of the indexed n-grams
+     */
+    static final int GRAM_LENGTH = 3;
+
+    /**
+     * The character without accent corresponding to each lowercase accented character
+     * of {@link #ACCENT_EQUIV}
+     */
+    private static final Map<Character, Character> ACCENT_BASE = accentBase();
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * The searched names, the stop names followed by the aliases, and the stop name
+     * each of them stands for
+     */
+    private final String[] entryNames;
+    private final String[] entryStops;
+
+    /**
+     * The folded form of each searched name, whose characters are at the same positions
+     * as in the name, since folding maps each character to a single one
+     */
+    private final String[] foldedNames;
+
+    /**
+     * The indices of the entries whose folded name contains each n-gram, in increasing
+     * order
+     */
+    private final Map<String, int[]> postings;
+
     /**
      * StopIndex constructor
      * @param stopNames list of stop Names
@@ -41,6 +79,145 @@ public final class StopIndex {
     public StopIndex(List<String> stopNames, Map<String,String> altNames){
         this.stopNames = List.copyOf(stopNames);
         this.altNames = Map.copyOf(altNames);
+
+        int size = this.stopNames.size() + this.altNames.size();
+        this.entryNames = new String[size];
+        this.entryStops = new String[size];
+        this.foldedNames = new String[size];
+        int id = 0;
+        for (String name : this.stopNames) {
+            entryNames[id] = name;
+            entryStops[id++] = name;
+        }
+        for (Map.Entry<String, String> e : this.altNames.entrySet()) {
+            entryNames[id] = e.getValue();
+            entryStops[id++] = e.getKey();
+        }
+
+        Map<String, Posting> builders = new HashMap<>();
+        for (id = 0; id < size; id++) {
+            String folded = fold(entryNames[id]);
+            foldedNames[id] = folded;
+            for (int length = 1; length <= GRAM_LENGTH; length++) {
+                for (int i = 0; i + length <= folded.length(); i++) {
+                    builders.computeIfAbsent(folded.substring(i, i + length), g -> new Posting()).add(id);
+                }
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>();
+        builders.forEach((gram, posting) -> postings.put(gram, posting.toArray()));
+        this.postings = postings;
+    }
+
+    /**
+     * The indices of the entries containing an n-gram, while they are being collected
+     * in increasing order
+     */
+    private static final class Posting {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, 2 * size);
+            ids[size++] = id;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /**
+     * Helper method that inverts the character classes of {@link #ACCENT_EQUIV}
+     * @return the character without accent corresponding to each lowercase accented
+     * character
+     */
+    private static Map<Character, Character> accentBase() {
+        Map<Character, Character> base = new HashMap<>();
+        ACCENT_EQUIV.forEach((ch, equiv) -> {
+            if (Character.isLowerCase(ch)) {
+                for (char variant : equiv.substring(1, equiv.length() - 1).toCharArray()) {
+                    base.put(variant, ch);
+                }
+            }
+        });
+        return Map.copyOf(base);
+    }
+
+    /**
+     * Helper method that removes the case and the accents of a character, such that two
+     * characters matched by a subquery always have the same folded form
+     * @param c the character
+     * @return the folded character
+     */
+    static char fold(char c) {
+        char lower = caseless(c);
+        return ACCENT_BASE.getOrDefault(lower, lower);
+    }
+
+    /**
+     * Helper method that removes the case of a character, like the case-insensitive
+     * regular expressions do
+     * @param c the character
+     * @return the lowercase form of the uppercase form of the character
+     */
+    private static char caseless(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Helper method that folds every character of a string
+     * @param s the string
+     * @return the folded string
+     */
+    static String fold(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Helper method that finds the entries that may match all the given subqueries,
+     * from the n-grams of the subqueries
+     * @param subqueries the subqueries
+     * @return the indices of the candidate entries in increasing order, or null if the
+     * subqueries do not narrow them
+     */
+    private int[] candidates(SubQuery[] subqueries) {
+        int[] candidates = null;
+        for (SubQuery subquery : subqueries) {
+            String folded = subquery.folded;
+            int length = Math.min(folded.length(), GRAM_LENGTH);
+            for (int i = 0; length > 0 && i + length <= folded.length(); i++) {
+                int[] posting = postings.getOrDefault(folded.substring(i, i + length), NO_IDS);
+                candidates = candidates == null ? posting : intersection(candidates, posting);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Helper method that intersects two posting lists
+     * @param a sorted indices
+     * @param b sorted indices
+     * @return the sorted indices contained in both
+     */
+    private static int[] intersection(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
     }
 
     /**
@@ -50,24 +227,100 @@ public final class StopIndex {
      * duplicates
      */
     public List<String> stopsMatching(String query, int maxResults){
-        int flags = query.chars().anyMatch(Character::isUpperCase)
-            ? Pattern.UNICODE_CASE
-            : Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE;
-
-        String[] subqueries = query.trim().split("\\s+");
-        Pattern[] subREs = toRegEx(subqueries,flags);
-
-        Stream<Map.Entry<String, String>> combinedStream = Stream.concat(
-            stopNames.stream().map(name -> Map.entry(name, name)),
-            altNames.entrySet().stream().map(e -> Map.entry(e.getValue(), e.getKey()))
-        );
-
-        return combinedStream
-            .filter(entry -> matchesAllSubqueries(entry.getKey(),subREs))
-            .collect(Collectors.toMap(
-                Map.Entry::getValue,
-                entry -> relevanceScore(entry.getKey(),subREs),
-                Math::max))
+        SubQuery[] subqueries = subqueries(query);
+        return bestStops(matches(subqueries, candidates(subqueries), null), maxResults);
+    }
+
+    /**
+     * @return a new search session, whose queries are typed one after the other
+     */
+    public Session session() {
+        return new Session();
+    }
+
+    /**
+     * A search following a query as it is typed, which keeps the entries matching the
+     * last query, so that an extension of it only searches among them. Its results are
+     * the ones of {@link #stopsMatching(String, int)}. A session is not thread-safe.
+     */
+    public final class Session {
+        private String query;
+        private int[] matchingIds;
+
+        /**
+         * Whether the entries matching an extension of the last query are among the ones
+         * matching it
+         */
+        private boolean narrowing;
+
+        private Session() {
+        }
+
+        /**
+         * @param query the search query
+         * @param maxResults maximum number of results to return
+         * @return the list of stop names matching the query, sorted by decreasing relevance and without
+         * duplicates
+         */
+        public List<String> stopsMatching(String query, int maxResults) {
+            SubQuery[] subqueries = subqueries(query);
+            boolean extended = narrowing && query.startsWith(this.query);
+            int[] candidates = extended ? matchingIds : candidates(subqueries);
+            Posting matching = new Posting();
+            Map<String, Integer> scores = matches(subqueries, candidates, matching);
+            this.query = query;
+            this.matchingIds = matching.toArray();
+            // Appending characters to a query only adds constraints to its subqueries,
+            // unless it is blank or one of them is matched by its regular expression, as
+            // a lone ß or surrogate does not match what it matches followed by another one
+            this.narrowing = !query.isBlank() && Arrays.stream(subqueries).allMatch(sub -> sub.regEx == null);
+            return bestStops(scores, maxResults);
+        }
+    }
+
+    /**
+     * Helper method that splits a query into its subqueries
+     * @param query the search query
+     * @return the subqueries
+     */
+    private static SubQuery[] subqueries(String query) {
+        boolean caseInsensitive = query.chars().noneMatch(Character::isUpperCase);
+        return Arrays.stream(query.trim().split("\\s+"))
+            .map(sub -> new SubQuery(sub, caseInsensitive))
+            .toArray(SubQuery[]::new);
+    }
+
+    /**
+     * Helper method that scores the stops of the entries matching all the subqueries
+     * @param subqueries the subqueries
+     * @param candidates the indices of the searched entries in increasing order, or null to
+     * search all of them
+     * @param matching the posting collecting the indices of the matching entries, or null
+     * @return the best score of the entries of each matching stop
+     */
+    private Map<String, Integer> matches(SubQuery[] subqueries, int[] candidates, Posting matching) {
+        // The candidates are visited in the order of the entries, like a full scan
+        int count = candidates == null ? entryNames.length : candidates.length;
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int id = candidates == null ? i : candidates[i];
+            int score = relevanceScore(id, subqueries);
+            if (score >= 0) {
+                scores.merge(entryStops[id], score, Math::max);
+                if (matching != null) matching.add(id);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Helper method that sorts the matching stops by decreasing score
+     * @param scores the score of each matching stop
+     * @param maxResults maximum number of results to return
+     * @return the stops with the best scores
+     */
+    private static List<String> bestStops(Map<String, Integer> scores, int maxResults) {
+        return scores
             .entrySet()
             .stream()
             .sorted((Map.Entry.<String, Integer>comparingByValue().reversed()))
@@ -77,64 +330,154 @@ public final class StopIndex {
     }
 
     /**
-     * Helper method
-     * @param name
-     * @param subREs
-     * @return boolean to check if the stop name matches all the subqueries
+     * A subquery, searched in the folded names, each occurrence being checked against
+     * the characters matched by the character classes of the query
      */
-    private boolean  matchesAllSubqueries(String name, Pattern[] subREs) {
-        return Arrays.stream(subREs).allMatch(re -> re.matcher(name).find());
+    private static final class SubQuery {
+        private final String folded;
+
+        /**
+         * The characters matched at each position, without case if the query is
+         * case-insensitive
+         */
+        private final String[] matched;
+        private final boolean caseInsensitive;
+
+        /**
+         * Whether every name whose folded form contains the folded subquery matches it,
+         * which is the case for a case-insensitive subquery without accents
+         */
+        private final boolean exact;
+
+        /**
+         * The regular expression of the subquery, if it is matched by it, null otherwise
+         */
+        private final Pattern regEx;
+
+        /**
+         * SubQuery constructor
+         * @param subquery the subquery
+         * @param caseInsensitive whether the query has no uppercase character
+         */
+        private SubQuery(String subquery, boolean caseInsensitive) {
+            this.folded = fold(subquery);
+            this.matched = new String[subquery.length()];
+            this.caseInsensitive = caseInsensitive;
+            boolean exact = caseInsensitive;
+            boolean needsRegEx = false;
+            for (int i = 0; i < subquery.length(); i++) {
+                char ch = caseInsensitive ? Character.toLowerCase(subquery.charAt(i)) : subquery.charAt(i);
+                String equiv = ACCENT_EQUIV.get(ch);
+                String chars = equiv == null ? Character.toString(ch) : equiv.substring(1, equiv.length() - 1);
+                matched[i] = caseInsensitive ? caseless(chars) : chars;
+                exact &= equiv != null || fold(ch) == ch;
+                // Surrogates are matched by code point, and a case-insensitive ß alone
+                // does not match ẞ while it does next to another character
+                needsRegEx |= Character.isSurrogate(ch) || (caseInsensitive && ch == 'ß');
+            }
+            this.exact = exact;
+            this.regEx = needsRegEx ? toRegEx(subquery, caseInsensitive) : null;
+        }
+
+        /**
+         * @return the number of characters of the subquery, which is the length of each of
+         * its matches
+         */
+        private int length() {
+            return matched.length;
+        }
+
+        /**
+         * @param name the searched name
+         * @param foldedName the folded form of the name
+         * @return the index of the first match of the subquery in the name, -1 if there is
+         * none
+         */
+        private int find(String name, String foldedName) {
+            if (regEx != null) {
+                Matcher matcher = regEx.matcher(name);
+                return matcher.find() ? matcher.start() : -1;
+            }
+            int start = foldedName.indexOf(folded);
+            while (start >= 0 && !exact && !matchesAt(name, start)) {
+                start = foldedName.indexOf(folded, start + 1);
+            }
+            return start;
+        }
+
+        /**
+         * @param name the searched name
+         * @param start the index of an occurrence of the folded subquery in the folded name
+         * @return true if the characters of the name at this occurrence are matched
+         */
+        private boolean matchesAt(String name, int start) {
+            for (int i = 0; i < matched.length; i++) {
+                char c = name.charAt(start + i);
+                if (matched[i].indexOf(caseInsensitive ? caseless(c) : c) < 0) return false;
+            }
+            return true;
+        }
     }
 
     /**
-     * Helper method  that converts an array of subqueries into an array of RegExs,
-     * with the given flags
-     * @param subqueries
-     * @param flags
-     * @return an array of RegExs
+     * Helper method that removes the case of every character of a string
+     * @param s the string
+     * @return the string without case
      */
-    private Pattern[] toRegEx(String[] subqueries, int flags){
-        return Arrays.stream(subqueries)
-                     .map(sub -> sub.chars().mapToObj(c -> {
-                         char ch = ((flags & Pattern.CASE_INSENSITIVE) == Pattern.CASE_INSENSITIVE)
-                             ? Character.toLowerCase((char)c)
-                             : (char)c;
-                         return ACCENT_EQUIV.getOrDefault(ch,Pattern.quote(Character.toString(ch)));
-                     })
-                                    .collect(Collectors.joining()))
-                     .map(regex -> Pattern.compile(regex, flags))
-                     .toArray(Pattern[]::new);
+    private static String caseless(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = caseless(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Helper method that converts a subquery into a RegEx
+     * @param subquery the subquery
+     * @param caseInsensitive whether the query has no uppercase character
+     * @return the RegEx of the subquery
+     */
+    private static Pattern toRegEx(String subquery, boolean caseInsensitive){
+        int flags = caseInsensitive
+            ? Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE
+            : Pattern.UNICODE_CASE;
+        String regex = subquery.chars().mapToObj(c -> {
+                char ch = caseInsensitive ? Character.toLowerCase((char)c) : (char)c;
+                return ACCENT_EQUIV.getOrDefault(ch,Pattern.quote(Character.toString(ch)));
+            })
+            .collect(Collectors.joining());
+        return Pattern.compile(regex, flags);
     }
 
 
     /**
      * Helper method to calculate the relevance score of each stop
-     * @param name the stop name
-     * @param subREs
-     * @return the relevance score of the given stop
+     * @param id the index of the searched name
+     * @param subqueries the subqueries
+     * @return the relevance score of the given stop, -1 if it does not match all the subqueries
      */
-    private int relevanceScore(String name, Pattern[] subREs){
+    private int relevanceScore(int id, SubQuery[] subqueries){
+        String name = entryNames[id];
         int score = 0;
-        for(Pattern subquery: subREs){
-            Matcher matcher = subquery.matcher(name);
-            if(matcher.find()){
-                int matcherStart = matcher.start();
-                int matcherEnd = matcher.end();
-                int matchLength = matcherEnd - matcherStart;
+        for(SubQuery subquery: subqueries){
+            int matcherStart = subquery.find(name, foldedNames[id]);
+            if(matcherStart < 0) return -1;
+            int matcherEnd = matcherStart + subquery.length();
+            int matchLength = matcherEnd - matcherStart;
 
-                int subqueryScore = (matchLength * 100) / name.length();
+            int subqueryScore = (matchLength * 100) / name.length();
 
-                boolean startMatches = matcherStart == 0
-                    || !Character.isLetter(name.charAt(matcherStart - 1));
-                boolean endMatches = matcherEnd == name.length()
-                    || !Character.isLetter(name.charAt(matcherEnd));
-                int multiplier = 1;
+            boolean startMatches = matcherStart == 0
+                || !Character.isLetter(name.charAt(matcherStart - 1));
+            boolean endMatches = matcherEnd == name.length()
+                || !Character.isLetter(name.charAt(matcherEnd));
+            int multiplier = 1;
 
-                if(startMatches) multiplier *= 4;
-                if(endMatches) multiplier *= 2;
+            if(startMatches) multiplier *= 4;
+            if(endMatches) multiplier *= 2;
 
-                score += subqueryScore * multiplier;
-            }
+            score += subqueryScore * multiplier;
         }
         return score;
     }
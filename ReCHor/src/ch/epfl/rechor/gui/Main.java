@@ -5,14 +5,16 @@ import ch.epfl.rechor.journey.Journey;
 import ch.epfl.rechor.journey.JourneyExtractor;
 import ch.epfl.rechor.journey.Profile;
 import ch.epfl.rechor.journey.Router;
-import ch.epfl.rechor.timetable.CachedTimeTable;
 import ch.epfl.rechor.timetable.StationAliases;
 import ch.epfl.rechor.timetable.Stations;
 import ch.epfl.rechor.timetable.TimeTable;
-import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.TimeTablePrefetcher;
+import ch.epfl.rechor.timetable.mapped.ReloadableTimeTable;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.Scene;
 import javafx.scene.control.SplitPane;
@@ -25,6 +27,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Main class serves as the entry point for the ReCHor application. It
@@ -43,6 +48,11 @@ public class Main extends Application {
      */
     ObservableValue<List<Journey>> journeysListObs;
 
+    /**
+     * The prefetcher of the current timetable snapshot.
+     */
+    private TimeTablePrefetcher prefetcher;
+
     /**
      * The main method launches the JavaFX application.
      *
@@ -62,28 +72,54 @@ public class Main extends Application {
     public void start(Stage primaryStage) throws Exception {
 
         Path timetablePath = Path.of("timetable");
-        TimeTable timetable = new CachedTimeTable(FileTimeTable.in(timetablePath));
-        Stations stations = timetable.stations();
-        StationAliases stationAliases = timetable.stationAliases();
+        ReloadableTimeTable timetables = new ReloadableTimeTable(timetablePath);
+        ObjectProperty<TimeTable> timetableP = new SimpleObjectProperty<>(timetables.current());
+        Stations stations = timetableP.get().stations();
+        StationAliases stationAliases = timetableP.get().stationAliases();
         List<String> stationNames = generateStationNames(stations);
         Map<String, String> altStationNames = generateAltNames(stations, stationAliases);
         StopIndex stopIndex = new StopIndex(stationNames, altStationNames);
         QueryUI queryUI = QueryUI.create(stopIndex);
+        // Loads the chosen day and the next one in the background, the cache of the
+        // current snapshot keeping them along with the previously chosen day
+        prefetcher = new TimeTablePrefetcher(timetableP.get(), 1);
+        prefetch(prefetcher, queryUI.dateO().getValue());
+        queryUI.dateO().addListener((o, oldDate, newDate) -> {
+            if (newDate != null) prefetch(prefetcher, newDate);
+        });
+        // The timetable directory is refreshed every day: it is reloaded in the
+        // background, and the new snapshot is used once it has been validated
+        timetableP.addListener((o, oldTimetable, newTimetable) -> {
+            prefetcher.close();
+            prefetcher = new TimeTablePrefetcher(newTimetable, 1);
+            prefetch(prefetcher, queryUI.dateO().getValue());
+        });
+        ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().factory());
+        reloader.scheduleAtFixedRate(() -> reload(timetables, timetablePath, timetableP),
+                1, 1, TimeUnit.DAYS);
+        primaryStage.setOnHidden(e -> {
+            reloader.shutdownNow();
+            prefetcher.close();
+        });
         ObservableValue<Profile> profileObs = Bindings.createObjectBinding(() -> {
+            TimeTable timetable = timetableP.get();
             String arrName = queryUI.arrStopO().getValue();
             LocalDate date = queryUI.dateO().getValue();
-            int arrId = stationId(stations, arrName);
+            int arrId = stationId(timetable.stations(), arrName);
             if (arrName == null || arrName.isBlank() || arrId == -1)
                 return null;
             return new Router(timetable).profile(date, arrId);
-        }, queryUI.arrStopO(), queryUI.dateO());
+        }, queryUI.arrStopO(), queryUI.dateO(), timetableP);
 
         journeysListObs = Bindings.createObjectBinding(() -> {
             String depName = queryUI.depStopO().getValue();
-            int depId = stationId(stations, depName);
-
             Profile profile = profileObs.getValue();
-            if (profile == null || depId == -1)
+            if (profile == null)
+                return List.of();
+
+            int depId = stationId(profile.timeTable().stations(), depName);
+            if (depId == -1)
                 return List.of();
 
             return JourneyExtractor.journeys(profile, depId);
@@ -106,6 +142,39 @@ public class Main extends Application {
         Platform.runLater(() -> scene.lookup("#depStop").requestFocus());
     }
 
+    /**
+     * Starts loading the given day and the following ones in the background, reporting
+     * the days whose files could not be read.
+     *
+     * @param prefetcher The prefetcher of the timetable.
+     * @param date       The first day loaded.
+     */
+    private static void prefetch(TimeTablePrefetcher prefetcher, LocalDate date) {
+        prefetcher.prefetch(date).exceptionally(e -> {
+            System.err.println("Could not load the timetable of " + date + ": " + e.getCause());
+            return null;
+        });
+    }
+
+    /**
+     * Reloads the timetable directory in the background, and publishes the new snapshot
+     * on the JavaFX thread once it has replaced the current one, reporting the
+     * directories that could not be read or are invalid.
+     *
+     * @param timetables The reloadable timetable.
+     * @param directory  The timetable directory.
+     * @param timetableP The property holding the current snapshot.
+     */
+    private static void reload(ReloadableTimeTable timetables, Path directory,
+                               ObjectProperty<TimeTable> timetableP) {
+        timetables.reload(directory).whenComplete((timetable, e) -> {
+            if (e != null)
+                System.err.println("Could not reload the timetable: " + e.getCause());
+            else
+                Platform.runLater(() -> timetableP.set(timetable));
+        });
+    }
+
     /**
      * Generates a list of station names from the given Stations object.
      *
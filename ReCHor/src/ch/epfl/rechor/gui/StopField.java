@@ -49,8 +49,10 @@ public record StopField (TextField textField, ObservableValue<String> stopO){
         window.setHideOnEscape(false);
         window.getContent().add(results);
 
+        // The session narrows the search as long as the query is only extended
+        StopIndex.Session session = stopIndex.session();
         ChangeListener<String> textListener = (obs, oldVal, newVal) -> {
-            List<String> matches = stopIndex.stopsMatching(newVal, 30);
+            List<String> matches = session.stopsMatching(newVal, 30);
             stopsList.setAll(matches);
             if (matches.isEmpty()) {
                 window.hide();
@@ -1,11 +1,11 @@
 package ch.epfl.rechor.journey;
 
 import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.timetable.CompiledConnections;
 import ch.epfl.rechor.timetable.Connections;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.Trips;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -17,60 +17,163 @@ import java.util.List;
  */
 public abstract class JourneyExtractor {
 
+    /**
+     * A journey of a profile that has not been built yet, with the departure and arrival
+     * times by which the journeys are sorted
+     *
+     * @param criteria the packed criteria of the journey, in the front of its departure
+     *                 station
+     * @param depMins  the departure time of the first leg of the journey, in minutes
+     *                 after midnight
+     * @param arrMins  the arrival time of the journey, in minutes after midnight
+     */
+    public record Handle(long criteria, int depMins, int arrMins) {
+    }
+
     /**
      * @param profile given profile
      * @param depStationId ID of departure station
      * @return List of Journeys from a given profile and a departure point
      */
     public static List<Journey> journeys(Profile profile, int depStationId) {
-        List<Journey> journeys = new ArrayList<>();
-        ParetoFront pf = profile.forStation(depStationId);
-        pf.forEach((long criteria) -> journeys.add(buildJourney(profile, criteria, depStationId)));
-        journeys.sort(Comparator.comparing(Journey::depTime).thenComparing(Journey::arrTime));
+        List<Handle> handles = handles(profile, depStationId);
+        CompiledConnections connections = profile.compiledConnections();
+        List<Journey> journeys = new ArrayList<>(handles.size());
+        for (Handle handle : handles) {
+            journeys.add(buildJourney(profile, connections, handle.criteria(), depStationId));
+        }
         return journeys;
     }
 
     /**
-     * Helper method to initialise date
-     * @param date
+     * @param profile given profile
+     * @param depStationId ID of departure station
+     * @return the handles of the journeys from a given profile and a departure point,
+     *         in the order of {@link #journeys(Profile, int)}, without building them
+     */
+    public static List<Handle> handles(Profile profile, int depStationId) {
+        CompiledConnections connections = profile.compiledConnections();
+        List<Handle> handles = new ArrayList<>();
+        profile.forStation(depStationId).forEach((long criteria) -> {
+            int connectionId = Bits32_24_8.unpack24(PackedCriteria.payload(criteria));
+            // Without an initial foot leg, the journey departs with its first connection
+            int depMins = connections.depStationId(connectionId) == depStationId
+                    ? connections.depMins(connectionId)
+                    : PackedCriteria.depMins(criteria);
+            handles.add(new Handle(criteria, depMins, arrMins(profile, connections, criteria)));
+        });
+        handles.sort(Comparator.comparingInt(Handle::depMins).thenComparingInt(Handle::arrMins));
+        return handles;
+    }
+
+    /**
+     * @param profile given profile
+     * @param depStationId ID of departure station
+     * @param fromMins the earliest departure time, in minutes after midnight
+     * @param toMins the latest departure time, excluded, in minutes after midnight
+     * @return the handles of the journeys from a given profile and a departure point
+     *         departing in the given time window, in the order of
+     *         {@link #journeys(Profile, int)}
+     */
+    public static List<Handle> handles(Profile profile, int depStationId, int fromMins, int toMins) {
+        List<Handle> handles = handles(profile, depStationId);
+        return handles.subList(firstDepartingFrom(handles, fromMins),
+                Math.max(firstDepartingFrom(handles, fromMins), firstDepartingFrom(handles, toMins)));
+    }
+
+    /**
+     * @param profile given profile
+     * @param depStationId ID of the departure station the handle was obtained for
+     * @param handle the handle of a journey of the given profile
+     * @return the journey of the given handle
+     */
+    public static Journey journey(Profile profile, int depStationId, Handle handle) {
+        CompiledConnections connections = profile.compiledConnections();
+        return buildJourney(profile, connections, handle.criteria(), depStationId);
+    }
+
+    /**
+     * Helper method to compute the arrival time of a journey without building it, by
+     * following its changes to its last connection
+     * @param profile given profile
+     * @param connections the compiled connections of the day of the profile
+     * @param criteria the packed criteria of the journey
+     * @return the arrival time of the last leg of the journey, in minutes after midnight
+     */
+    private static int arrMins(Profile profile, CompiledConnections connections, long criteria) {
+        final int finalArrMins = PackedCriteria.arrMins(criteria);
+        int changes = PackedCriteria.changes(criteria);
+        int payload = PackedCriteria.payload(criteria);
+        int lastConnectionId = finalConnectionId(connections, Bits32_24_8.unpack24(payload),
+                Bits32_24_8.unpack8(payload));
+        while (changes > 0) {
+            changes--;
+            payload = PackedCriteria.payload(
+                    profile.forStation(connections.arrStationId(lastConnectionId)).get(finalArrMins, changes));
+            lastConnectionId = finalConnectionId(connections, Bits32_24_8.unpack24(payload),
+                    Bits32_24_8.unpack8(payload));
+        }
+        // Without a final foot leg, the journey arrives with its last connection
+        return connections.arrStationId(lastConnectionId) == profile.arrStationId()
+                ? connections.arrMins(lastConnectionId)
+                : finalArrMins;
+    }
+
+    /**
+     * Helper method to find the first handle departing at or after a given time
+     * @param handles handles sorted by departure time
+     * @param mins the time, in minutes after midnight
+     * @return the index of the first handle departing at or after the given time
+     */
+    private static int firstDepartingFrom(List<Handle> handles, int mins) {
+        int low = 0;
+        int high = handles.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (handles.get(middle).depMins() < mins) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Helper method to initialise date, from the start of the day computed once per
+     * journey
+     * @param dayStart
      * @param mins
      * @return
      */
-    private static LocalDateTime initialiseDateTime(LocalDate date, int mins) {
-        return date.atStartOfDay().plusMinutes(mins);
+    private static LocalDateTime initialiseDateTime(LocalDateTime dayStart, int mins) {
+        return dayStart.plusMinutes(mins);
     }
 
     /**
-     * Helper method to create a stop
+     * Helper method to get a stop, shared by all the journeys of the timetable if it
+     * caches its stops
      * @param table
      * @param stopId
      * @return
      */
     private static Stop buildStop(TimeTable table, int stopId) {
-        int stationId = table.stationId(stopId);
-        String platformName = table.platformName(stopId);
-        String stationName = table.stations().name(stationId);
-        double longitude = table.stations().longitude(stationId);
-        double latitude = table.stations().latitude(stationId);
-        return new Stop(stationName, platformName, longitude, latitude);
+        return table.stop(stopId);
     }
 
     /**
      * Helper method to create a foot leg
      * @param table
-     * @param date
+     * @param dayStart
      * @param depStopId
      * @param depMins
      * @param arrStopId
      * @return
      */
-    private static Journey.Leg.Foot buildFootLeg(TimeTable table, LocalDate date, int depStopId,
+    private static Journey.Leg.Foot buildFootLeg(TimeTable table, LocalDateTime dayStart, int depStopId,
                                                  int depMins, int arrStopId) {
         int arrStation = table.stationId(arrStopId);
         int depStation = table.stationId(depStopId);
         Stop depStop = buildStop(table, depStopId);
         Stop arrStop = buildStop(table, arrStopId);
-        LocalDateTime depTime = initialiseDateTime(date, depMins);
+        LocalDateTime depTime = initialiseDateTime(dayStart, depMins);
         int minsBetween = table.transfers().minutesBetween(depStation,
                                                  arrStation);
         LocalDateTime arrTime = depTime.plusMinutes(minsBetween);
@@ -80,12 +183,12 @@ public abstract class JourneyExtractor {
     /**
      * Helper method to create 1 intermediate stop
      * @param table
-     * @param date
+     * @param dayStart
      * @param connections
      * @param connectionId
      * @return
      */
-    private static Journey.Leg.IntermediateStop buildIntermediateStop(TimeTable table, LocalDate date, Connections connections,
+    private static Journey.Leg.IntermediateStop buildIntermediateStop(TimeTable table, LocalDateTime dayStart, Connections connections,
                                                                       int connectionId) {
         int stopId = connections.arrStopId(connectionId);
         Stop stop = buildStop(table, stopId);
@@ -93,8 +196,8 @@ public abstract class JourneyExtractor {
 
         int depMins = connections.arrMins(connectionId);
         int arrMins = connections.depMins(nextConnection);
-        LocalDateTime depTime = initialiseDateTime(date, depMins);
-        LocalDateTime arrTime = initialiseDateTime(date, arrMins);
+        LocalDateTime depTime = initialiseDateTime(dayStart, depMins);
+        LocalDateTime arrTime = initialiseDateTime(dayStart, arrMins);
 
         return new Journey.Leg.IntermediateStop(stop, depTime, arrTime);
     }
@@ -102,59 +205,57 @@ public abstract class JourneyExtractor {
     /**
      * Helper method to create a list of intermediate stops
      * @param table
-     * @param date
+     * @param dayStart
      * @param connections
      * @param connectionId
      * @param NumOfStops
      * @return
      */
     private static List<Journey.Leg.IntermediateStop> buildIntermediateStops(
-        TimeTable table, LocalDate date, Connections connections, int connectionId, int NumOfStops) {
-        List<Journey.Leg.IntermediateStop> stops = new ArrayList<>();
+        TimeTable table, LocalDateTime dayStart, Connections connections, int connectionId, int NumOfStops) {
+        List<Journey.Leg.IntermediateStop> stops = new ArrayList<>(NumOfStops);
         for (int i = 0; i < NumOfStops; i++) {
-            stops.add(buildIntermediateStop(table, date, connections, connectionId));
+            stops.add(buildIntermediateStop(table, dayStart, connections, connectionId));
             connectionId = connections.nextConnectionId(connectionId);
         }
         return stops;
     }
 
     /**
-     * Helper method to calculate the final connection index
+     * Helper method to calculate the final connection index, from the position of the
+     * given connection in its trip
      * @param connections
      * @param connectionid
      * @param numOfStops
      * @return
      */
-    private static int finalConnectionId(Connections connections, int connectionid,
+    private static int finalConnectionId(CompiledConnections connections, int connectionid,
                                          int numOfStops) {
-        for (int i = 0; i < numOfStops; i++) {
-            connectionid = connections.nextConnectionId(connectionid);
-        }
-        return connectionid;
+        return connections.connectionIdAfter(connectionid, numOfStops);
     }
 
     /**
      * Helper method to create a transport leg
      * @param table
-     * @param date
+     * @param dayStart
      * @param connections
      * @param trips
      * @param connectionId
      * @param numOfStops
      * @return
      */
-    private static Journey.Leg.Transport buildTransport(TimeTable table, LocalDate date,
-                                                        Connections connections, Trips trips,
+    private static Journey.Leg.Transport buildTransport(TimeTable table, LocalDateTime dayStart,
+                                                        CompiledConnections connections, Trips trips,
                                                         int connectionId, int numOfStops) {
         Stop depStop = buildStop(table,  connections.depStopId(connectionId));
 
         int lastConnectionId = finalConnectionId(connections, connectionId, numOfStops);
         Stop arrStop = buildStop(table, connections.arrStopId(lastConnectionId));
 
-        LocalDateTime depTime = initialiseDateTime(date, connections.depMins(connectionId));
-        LocalDateTime arrTime = initialiseDateTime(date, connections.arrMins(lastConnectionId));
+        LocalDateTime depTime = initialiseDateTime(dayStart, connections.depMins(connectionId));
+        LocalDateTime arrTime = initialiseDateTime(dayStart, connections.arrMins(lastConnectionId));
 
-        List<Journey.Leg.IntermediateStop> intermediateStops= buildIntermediateStops(table, date ,connections ,connectionId, numOfStops);
+        List<Journey.Leg.IntermediateStop> intermediateStops= buildIntermediateStops(table, dayStart ,connections ,connectionId, numOfStops);
         int tripId = connections.tripId(connectionId);
         int routeId = trips.routeId(tripId);
         return new Journey.Leg.Transport(depStop, depTime, arrStop, arrTime,
@@ -165,16 +266,16 @@ public abstract class JourneyExtractor {
     /**
      * Helper method to build a journey
      * @param profile
+     * @param connections
      * @param criteria
      * @param depStationId
      * @return
      */
-    private static Journey buildJourney(Profile profile, Long criteria,
+    private static Journey buildJourney(Profile profile, CompiledConnections connections, Long criteria,
                                         int depStationId) {
         List<Journey.Leg> legs = new ArrayList<>();
         final TimeTable table = profile.timeTable();
-        final LocalDate date = profile.date();
-        final Connections connections = profile.connections();
+        final LocalDateTime dayStart = profile.date().atStartOfDay();
         final Trips trips = profile.trips();
 
         int currentDepMins = PackedCriteria.depMins(criteria);
@@ -191,7 +292,7 @@ public abstract class JourneyExtractor {
         int nextConnectionDepStopId = currentDepStopId;
 
         if (depStationId != table.stationId(currentDepStopId)) {
-            legs.add(buildFootLeg(table, date, depStationId, currentDepMins, currentDepStopId));
+            legs.add(buildFootLeg(table, dayStart, depStationId, currentDepMins, currentDepStopId));
         }
 
         boolean lastLegIsFoot = !legs.isEmpty();
@@ -199,7 +300,7 @@ public abstract class JourneyExtractor {
         while (changes >= 0) {
 
             if (lastLegIsFoot || legs.isEmpty()) {
-                legs.add(buildTransport(table, date, connections,trips,currentConnectionId, currentIntermediateStops));
+                legs.add(buildTransport(table, dayStart, connections,trips,currentConnectionId, currentIntermediateStops));
                 lastLegIsFoot = false;
                 changes--;
 
@@ -216,7 +317,7 @@ public abstract class JourneyExtractor {
                 }
 
             } else {
-                legs.add(buildFootLeg( table, date, currentStop, currentDepMins, nextConnectionDepStopId));
+                legs.add(buildFootLeg( table, dayStart, currentStop, currentDepMins, nextConnectionDepStopId));
                 lastLegIsFoot = true;
                 currentStop = nextConnectionDepStopId;
             }
@@ -226,7 +327,7 @@ public abstract class JourneyExtractor {
         final int lastArrStopId = connections.arrStopId(finalConnectionId);
 
         if (finalArrivalStation != table.stationId(lastArrStopId)) {
-            legs.add(buildFootLeg(table, date, lastArrStopId, connections.arrMins(finalConnectionId),
+            legs.add(buildFootLeg(table, dayStart, lastArrStopId, connections.arrMins(finalConnectionId),
                                  finalArrivalStation));
         }
         return new Journey(legs);
@@ -1,5 +1,7 @@
 package ch.epfl.rechor.journey;
 
+import ch.epfl.rechor.Preconditions;
+
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.function.LongConsumer;
@@ -16,17 +18,42 @@ public final class ParetoFront {
      * The journey details
      */
     private final long[] packedCriteria;
+    /**
+     * The index of the first tuple of the frontier in the array
+     */
+    private final int from;
+    /**
+     * The number of tuples of the frontier
+     */
+    private final int size;
     /**
      * Empty Pareto Frontier
      */
-    public static final ParetoFront EMPTY = new ParetoFront(new long[0]);
+    public static final ParetoFront EMPTY = new ParetoFront(new long[0], 0, 0);
 
     /**
      * private constructor
      * @param packedCriteria the array that stores the journey details
+     * @param from the index of the first tuple of the frontier in the array
+     * @param size the number of tuples of the frontier
      */
-    private ParetoFront(long[] packedCriteria) {
+    private ParetoFront(long[] packedCriteria, int from, int size) {
         this.packedCriteria = packedCriteria;
+        this.from = from;
+        this.size = size;
+    }
+
+    /**
+     * Returns a frontier viewing the given part of the array, without copying it, which
+     * must therefore not be modified afterwards
+     *
+     * @param packedCriteria the array that stores the journey details
+     * @param from the index of the first tuple of the frontier in the array
+     * @param size the number of tuples of the frontier
+     * @return the frontier made of the given tuples
+     */
+    static ParetoFront view(long[] packedCriteria, int from, int size) {
+        return size == 0 ? EMPTY : new ParetoFront(packedCriteria, from, size);
     }
 
     /**
@@ -34,7 +61,7 @@ public final class ParetoFront {
      * @return the size of the frontier
      */
     public int size() {
-        return packedCriteria.length;
+        return size;
     }
 
     /**
@@ -45,7 +72,8 @@ public final class ParetoFront {
      * @throws NoSuchElementException if there is no packed value with the given information
      */
     public long get(int arrMins, int changes) {
-        for (long l : packedCriteria) {
+        for (int i = from; i < from + size; i++) {
+            long l = packedCriteria[i];
             if (PackedCriteria.arrMins(l) == arrMins && PackedCriteria.changes(l) == changes) {
                 return l;
             }
@@ -58,8 +86,8 @@ public final class ParetoFront {
      * @param action to do
      */
     public void forEach(LongConsumer action) {
-        for (long value : packedCriteria) {
-            action.accept(value);
+        for (int i = from; i < from + size; i++) {
+            action.accept(packedCriteria[i]);
         }
     }
 
@@ -70,7 +98,8 @@ public final class ParetoFront {
     public String toString() {
         StringBuilder str = new StringBuilder();
         int counter = 0;
-        for (long tuple : packedCriteria) {
+        for (int i = from; i < from + size; i++) {
+            long tuple = packedCriteria[i];
             str.append(counter).append(")").append(" \r\n");
             if (PackedCriteria.hasDepMins(tuple)) {
                 str.append("Departure: ").append(PackedCriteria.depMins(tuple)).append(" | ");
@@ -87,9 +116,38 @@ public final class ParetoFront {
 
     /**
      * Builder class for the frontier
+     * <p>
+     * The tuples are kept sorted in increasing packed order in a backing array whose
+     * capacity doubles when full, so that adding a tuple never allocates once the
+     * array has grown to the size of the frontier.
      */
     public static class Builder {
 
+        /**
+         * Initial capacity of the backing array
+         */
+        private static final int INITIAL_CAPACITY = 2;
+
+        /**
+         * Mask selecting the departure time bits of a packed tuple
+         */
+        private static final long DEP_MINS_MASK = 0xFFFL << 51;
+
+        /**
+         * Mask selecting the arrival time bits of a packed tuple
+         */
+        private static final long ARR_MINS_MASK = 0xFFFL << 39;
+
+        /**
+         * Mask selecting the changes bits of a packed tuple
+         */
+        private static final long CHANGES_MASK = 0x7FL << 32;
+
+        /**
+         * Mask selecting every criterion of a packed tuple, i.e. everything but the payload
+         */
+        private static final long CRITERIA_MASK = DEP_MINS_MASK | ARR_MINS_MASK | CHANGES_MASK;
+
         /**
          * The array that will store the tuples
          */
@@ -104,7 +162,7 @@ public final class ParetoFront {
          * Default constructor that initialises the tuple array and size
          */
         public Builder() {
-            this.frontier = new long[1];
+            this.frontier = new long[INITIAL_CAPACITY];
             this.size = 0;
         }
 
@@ -113,7 +171,7 @@ public final class ParetoFront {
          * @param that an instance of the Builder class
          */
         public Builder(Builder that) {
-            this.frontier = Arrays.copyOf(that.frontier, that.size);
+            this.frontier = Arrays.copyOf(that.frontier, Math.max(that.size, INITIAL_CAPACITY));
             this.size = that.size;
         }
 
@@ -135,55 +193,70 @@ public final class ParetoFront {
         }
 
         /**
+         * Adds the given tuple in place, without allocating once the backing array is large
+         * enough (see {@link #insert(long[], int, int, long)})
          *
          * @param packedTuple packed criteria of the tuple
          * @return adds the given tuple to the frontier if it is relevant to add and returns it
+         * @throws IllegalArgumentException if the tuple has a departure time and the tuples of
+         *                                  the frontier do not, or vice versa
          */
         public Builder add(long packedTuple) {
+            if (size == frontier.length) {
+                frontier = Arrays.copyOf(frontier, frontier.length * 2);
+            }
+            size = insert(frontier, 0, size, packedTuple);
+            return this;
+        }
+
+        /**
+         * Adds the given tuple to the frontier stored, sorted in increasing packed order, in
+         * the given part of the array. Its position is found by binary search, the tuples that
+         * could dominate it all precede it in packed order and the ones it dominates all follow
+         * it, the latter being compacted away in place.
+         *
+         * @param tuples the array storing the frontier, which must have room for one more
+         *               tuple after it
+         * @param from the index of the first tuple of the frontier in the array
+         * @param size the number of tuples of the frontier
+         * @param packedTuple packed criteria of the tuple
+         * @return the new number of tuples of the frontier
+         * @throws IllegalArgumentException if the tuple has a departure time and the tuples of
+         *                                  the frontier do not, or vice versa
+         */
+        static int insert(long[] tuples, int from, int size, long packedTuple) {
             if (size == 0) {
-                frontier[0] = packedTuple;
-                size++;
-                return this;
+                tuples[from] = packedTuple;
+                return 1;
             }
+            Preconditions.checkArgument(
+                PackedCriteria.hasDepMins(packedTuple) == PackedCriteria.hasDepMins(tuples[from]));
 
-            boolean[] keepList = new boolean[size];
-            int numKept = 0;
-            boolean needToInsertPacked = false;
-            boolean isDominated = false;
-            for (int i = 0; i < size; i++) {
-                keepList[i] = !PackedCriteria.dominatesOrIsEqual(packedTuple, frontier[i]);
-                needToInsertPacked = needToInsertPacked ||
-                    !PackedCriteria.dominatesOrIsEqual(frontier[i], packedTuple);
-                isDominated = isDominated || PackedCriteria.dominatesOrIsEqual(frontier[i],
-                                                                               packedTuple);
-                numKept += booleanToInt(keepList[i]);
+            int end = from + size;
+            int insertIndex = insertionIndex(tuples, from, end, packedTuple);
+            // A tuple with the same criteria but a bigger payload lies right after the insertion
+            // index, every other tuple that dominates or equals the new one precedes it
+            if (insertIndex < end && sameCriteria(tuples[insertIndex], packedTuple)) {
+                return size;
             }
-            if (isDominated) {
-                return this;
+            // Without departure times the preceding tuples have strictly decreasing changes,
+            // so only the closest one can dominate the new tuple
+            int firstCandidate = (packedTuple & DEP_MINS_MASK) == 0 ? insertIndex - 1 : from;
+            for (int i = insertIndex - 1; i >= Math.max(firstCandidate, from); i--) {
+                if (arrMinsAndChangesDominate(tuples[i], packedTuple)) {
+                    return size;
+                }
             }
-            int newSize = numKept + booleanToInt(needToInsertPacked);
-            long[] newFrontier = new long[newSize];
 
-            int insertIndex = 0;
-            boolean packedInserted = !needToInsertPacked;
-            for (int i = 0; i < size; i++) {
-                if (keepList[i]) {
-                    if ((packedTuple < frontier[i]) && !packedInserted) {
-                        newFrontier[insertIndex] = packedTuple;
-                        insertIndex += 1;
-                        packedInserted = true;
-                    }
-                    newFrontier[insertIndex] = frontier[i];
-                    insertIndex += 1;
+            int kept = insertIndex;
+            for (int i = insertIndex; i < end; i++) {
+                if (!arrMinsAndChangesDominate(packedTuple, tuples[i])) {
+                    tuples[kept++] = tuples[i];
                 }
             }
-            if (!packedInserted) {
-                newFrontier[insertIndex] = packedTuple;
-            }
-
-            frontier = newFrontier;
-            size = newSize;
-            return this;
+            System.arraycopy(tuples, insertIndex, tuples, insertIndex + 1, kept - insertIndex);
+            tuples[insertIndex] = packedTuple;
+            return kept + 1 - from;
         }
 
         /**
@@ -204,11 +277,16 @@ public final class ParetoFront {
          * @return an instance of this with the addition of the given frontier
          */
         public Builder addAll(Builder that) {
-            if (that.size == 0) {
+            if (size == 0) {
+                if (frontier.length < that.size) {
+                    frontier = new long[that.size];
+                }
+                System.arraycopy(that.frontier, 0, frontier, 0, that.size);
+                size = that.size;
                 return this;
             }
-            for (long tuple : that.frontier) {
-                this.add(tuple);
+            for (int i = 0; i < that.size; i++) {
+                this.add(that.frontier[i]);
             }
             return this;
         }
@@ -220,20 +298,31 @@ public final class ParetoFront {
          * @return true if every tuple in thisBuilder dominates the tuples in thatBuilder
          */
         public boolean fullyDominates(Builder that, int depMins) {
-            boolean[] dominatedList = new boolean[that.size];
-            int dominatedCount = 0;
+            return fullyDominates(frontier, 0, size, that, depMins);
+        }
+
+        /**
+         *
+         * @param tuples the array storing the dominating frontier
+         * @param from the index of the first tuple of the dominating frontier in the array
+         * @param size the number of tuples of the dominating frontier
+         * @param that instance of the frontier builder
+         * @param depMins departure time in minutes
+         * @return true if every tuple in thatBuilder, with the given departure time, is
+         *         dominated by a tuple of the given frontier
+         */
+        static boolean fullyDominates(long[] tuples, int from, int size, Builder that, int depMins) {
             for (int i = 0; i < that.size; i++) {
                 long thatWithDepMins = PackedCriteria.withDepMins(that.frontier[i], depMins);
-                for (int j = 0; j < this.size; j++) {
-                    dominatedList[i] = dominatedList[i]
-                            || PackedCriteria.dominatesOrIsEqual(this.frontier[j], thatWithDepMins);
+                boolean dominated = false;
+                for (int j = from; j < from + size && !dominated; j++) {
+                    dominated = PackedCriteria.dominatesOrIsEqual(tuples[j], thatWithDepMins);
                 }
-                if (!dominatedList[i]) {
+                if (!dominated) {
                     return false;
                 }
-                dominatedCount += booleanToInt(dominatedList[i]);
             }
-            return that.size == dominatedCount;
+            return true;
         }
 
         /**
@@ -251,7 +340,24 @@ public final class ParetoFront {
          * @return an instance of ParetoFront with the current tuple array and its size
          */
         public ParetoFront build() {
-            return new ParetoFront(Arrays.copyOf(frontier, size));
+            return view(Arrays.copyOf(frontier, size), 0, size);
+        }
+
+        /**
+         *
+         * @return the number of tuples of the frontier
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         *
+         * @param index the index of the tuple, in increasing packed order
+         * @return the tuple of the frontier with the given index
+         */
+        long get(int index) {
+            return frontier[index];
         }
 
         /**
@@ -263,12 +369,50 @@ public final class ParetoFront {
         }
 
         /**
+         * Helper method that finds, by binary search, the index of the first tuple of the
+         * given part of the array that is greater than or equal to the given one
+         *
+         * @param tuples the array storing the frontier
+         * @param from the index of the first tuple of the frontier in the array
+         * @param end the index following the last tuple of the frontier in the array
+         * @param packedTuple packed criteria of the tuple
+         * @return the index at which the given tuple should be inserted to keep the frontier sorted
+         */
+        private static int insertionIndex(long[] tuples, int from, int end, long packedTuple) {
+            int low = from;
+            int high = end;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (tuples[middle] < packedTuple) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         *
+         * @param tuple1 first packed tuple
+         * @param tuple2 second packed tuple
+         * @return true if both tuples have the same criteria, regardless of their payloads
+         */
+        private static boolean sameCriteria(long tuple1, long tuple2) {
+            return ((tuple1 ^ tuple2) & CRITERIA_MASK) == 0;
+        }
+
+        /**
+         * Helper method that only compares arrival times and changes, which is enough to
+         * decide dominance when the first tuple is known to precede the second in packed order
          *
-         * @param b given boolean
-         * @return returns 1 if the given boolean is true, 0 otherwise
+         * @param tuple1 first packed tuple
+         * @param tuple2 second packed tuple
+         * @return true if the first tuple arrives no later and with no more changes than the second
          */
-        private int booleanToInt(boolean b) {
-            return b ? 1 : 0;
+        private static boolean arrMinsAndChangesDominate(long tuple1, long tuple2) {
+            return (tuple1 & ARR_MINS_MASK) <= (tuple2 & ARR_MINS_MASK)
+                && (tuple1 & CHANGES_MASK) <= (tuple2 & CHANGES_MASK);
         }
     }
-}
\ No newline at end of file
+}
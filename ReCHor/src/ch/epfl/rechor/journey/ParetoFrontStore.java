@@ -0,0 +1,246 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * A store keeping the Pareto frontiers of every station and every trip of a profile
+ * in a single shared array, each frontier occupying a slot of it described by an
+ * offset, a length and a capacity.
+ * <p>
+ * The frontiers of the stations are the entries 0 to the number of stations
+ * (exclusive), those of the trips follow them (see {@link #tripEntry(int)}). When a
+ * frontier outgrows its slot, it is moved to a twice larger slot at the end of the
+ * array. Freezing the station frontiers into a profile copies their tuples, and only
+ * theirs, into a compact array of their own, so that the profile does not keep the trip
+ * frontiers and the abandoned slots alive, and the store keeps its array for the next
+ * queries.
+ * <p>
+ * A store is not thread-safe, and only the entries touched since the last reset are
+ * visited when it is reset.
+ */
+public final class ParetoFrontStore {
+
+    /**
+     * Capacity of the slot given to a frontier on its first tuple
+     */
+    private static final int INITIAL_SLOT_CAPACITY = 4;
+
+    /**
+     * The array shared by all the frontiers
+     */
+    private long[] arena;
+
+    /**
+     * The index following the last slot of the array
+     */
+    private int arenaEnd;
+
+    /**
+     * The number of stations, i.e. the index of the first trip entry
+     */
+    private final int stationCount;
+
+    /**
+     * The total number of entries, stations and trips
+     */
+    private int entryCount;
+
+    /**
+     * The offset, length and capacity of the slot of each entry, 0 if it has none
+     */
+    private int[] offsets;
+    private int[] lengths;
+    private int[] capacities;
+
+    /**
+     * The entries given a slot since the last reset
+     */
+    private int[] touchedEntries;
+    private int touchedCount;
+
+    /**
+     * Constructs an empty store for the given number of stations and trips
+     *
+     * @param stationCount the number of stations
+     * @param tripCount    the number of trips
+     */
+    public ParetoFrontStore(int stationCount, int tripCount) {
+        Preconditions.checkArgument(stationCount >= 0 && tripCount >= 0);
+        this.stationCount = stationCount;
+        this.entryCount = stationCount + tripCount;
+        this.arena = new long[Math.max(entryCount, INITIAL_SLOT_CAPACITY)];
+        this.offsets = new int[entryCount];
+        this.lengths = new int[entryCount];
+        this.capacities = new int[entryCount];
+        this.touchedEntries = new int[entryCount];
+    }
+
+    /**
+     * Empties every frontier of the store, which is then sized for the given number of
+     * trips, the number of stations being unchanged
+     *
+     * @param tripCount the number of trips
+     * @return the emptied store
+     */
+    public ParetoFrontStore reset(int tripCount) {
+        Preconditions.checkArgument(tripCount >= 0);
+        for (int i = 0; i < touchedCount; i++) {
+            int entry = touchedEntries[i];
+            lengths[entry] = 0;
+            capacities[entry] = 0;
+        }
+        touchedCount = 0;
+        arenaEnd = 0;
+
+        entryCount = stationCount + tripCount;
+        if (entryCount > offsets.length) {
+            offsets = Arrays.copyOf(offsets, entryCount);
+            lengths = Arrays.copyOf(lengths, entryCount);
+            capacities = Arrays.copyOf(capacities, entryCount);
+            touchedEntries = new int[entryCount];
+        }
+        return this;
+    }
+
+    /**
+     * @param tripId the trip index
+     * @return the entry of the frontier of the given trip
+     */
+    public int tripEntry(int tripId) {
+        return stationCount + tripId;
+    }
+
+    /**
+     * @param entry the entry index
+     * @return true if the frontier of the given entry is empty
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public boolean isEmpty(int entry) {
+        Preconditions.checkIndex(entryCount, entry);
+        return lengths[entry] == 0;
+    }
+
+    /**
+     * Adds the given tuple to the frontier of the given entry, if it is not dominated
+     * by one of its tuples
+     *
+     * @param entry       the entry index
+     * @param packedTuple packed criteria of the tuple
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public void add(int entry, long packedTuple) {
+        Preconditions.checkIndex(entryCount, entry);
+        if (lengths[entry] == capacities[entry]) {
+            grow(entry);
+        }
+        lengths[entry] = ParetoFront.Builder.insert(arena, offsets[entry], lengths[entry], packedTuple);
+    }
+
+    /**
+     * Adds every tuple of the given frontier builder to the frontier of the given entry
+     *
+     * @param entry the entry index
+     * @param that  the frontier builder whose tuples are added
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public void addAll(int entry, ParetoFront.Builder that) {
+        for (int i = 0; i < that.size(); i++) {
+            add(entry, that.get(i));
+        }
+    }
+
+    /**
+     * Adds every tuple of the frontier of the given entry to the given frontier builder
+     *
+     * @param entry the entry index
+     * @param that  the frontier builder to which the tuples are added
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public void addAllTo(int entry, ParetoFront.Builder that) {
+        Preconditions.checkIndex(entryCount, entry);
+        int from = offsets[entry];
+        for (int i = from; i < from + lengths[entry]; i++) {
+            that.add(arena[i]);
+        }
+    }
+
+    /**
+     * @param entry   the entry index
+     * @param that    instance of the frontier builder
+     * @param depMins departure time in minutes
+     * @return true if every tuple of the given builder, with the given departure time, is
+     *         dominated by a tuple of the frontier of the given entry
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public boolean fullyDominates(int entry, ParetoFront.Builder that, int depMins) {
+        Preconditions.checkIndex(entryCount, entry);
+        return ParetoFront.Builder.fullyDominates(arena, offsets[entry], lengths[entry], that, depMins);
+    }
+
+    /**
+     * @param entry  the entry index
+     * @param action to do for each tuple of the frontier of the given entry
+     * @throws IndexOutOfBoundsException if the entry is invalid
+     */
+    public void forEach(int entry, LongConsumer action) {
+        Preconditions.checkIndex(entryCount, entry);
+        int from = offsets[entry];
+        for (int i = from; i < from + lengths[entry]; i++) {
+            action.accept(arena[i]);
+        }
+    }
+
+    /**
+     * Freezes the frontiers of the stations, whose tuples are copied one after the other
+     * into a single array sized to them, of which the returned frontiers are views; the
+     * store is left unchanged
+     *
+     * @return the frontiers of all the stations, in order
+     */
+    public List<ParetoFront> freezeStations() {
+        int size = 0;
+        for (int i = 0; i < stationCount; i++) {
+            size += lengths[i];
+        }
+        long[] tuples = new long[size];
+        ParetoFront[] fronts = new ParetoFront[stationCount];
+        int from = 0;
+        for (int i = 0; i < stationCount; i++) {
+            System.arraycopy(arena, offsets[i], tuples, from, lengths[i]);
+            fronts[i] = ParetoFront.view(tuples, from, lengths[i]);
+            from += lengths[i];
+        }
+        return Arrays.asList(fronts);
+    }
+
+    /**
+     * Helper method that gives the given entry a slot twice as large as its current one,
+     * extending it in place when it is the last slot of the array
+     *
+     * @param entry the entry index
+     */
+    private void grow(int entry) {
+        int capacity = capacities[entry];
+        int newCapacity = capacity == 0 ? INITIAL_SLOT_CAPACITY : capacity * 2;
+        if (capacity == 0) {
+            touchedEntries[touchedCount++] = entry;
+        }
+
+        boolean isLastSlot = capacity != 0 && offsets[entry] + capacity == arenaEnd;
+        int newOffset = isLastSlot ? offsets[entry] : arenaEnd;
+        int newEnd = newOffset + newCapacity;
+        if (newEnd > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(newEnd, arena.length * 2));
+        }
+        if (!isLastSlot) {
+            System.arraycopy(arena, offsets[entry], arena, newOffset, lengths[entry]);
+            offsets[entry] = newOffset;
+        }
+        capacities[entry] = newCapacity;
+        arenaEnd = newEnd;
+    }
+}
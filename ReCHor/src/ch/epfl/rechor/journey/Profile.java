@@ -1,6 +1,7 @@
 package ch.epfl.rechor.journey;
 
 import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.CompiledConnections;
 import ch.epfl.rechor.timetable.Connections;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.Trips;
@@ -15,7 +16,7 @@ import java.util.List;
  * A profile
  */
 public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
-                      List<ParetoFront> stationFront) {
+                      List<ParetoFront> stationFront, CompiledConnections compiledConnections) {
     /**
      * Constructor that ensures immutability
      * 
@@ -23,11 +24,35 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
      * @param date of the connections
      * @param arrStationId arrival station ID
      * @param stationFront list of ParetoFrontiers for all the stations
+     * @param compiledConnections the compiled connections the profile was computed from,
+     *                            or null to obtain them from the timetable when needed
      */
     public Profile {
         stationFront = List.copyOf(stationFront);
     }
 
+    /**
+     * Constructor of a profile whose compiled connections are obtained from the
+     * timetable when needed
+     *
+     * @param timeTable of public transport
+     * @param date of the connections
+     * @param arrStationId arrival station ID
+     * @param stationFront list of ParetoFrontiers for all the stations
+     */
+    public Profile(TimeTable timeTable, LocalDate date, int arrStationId, List<ParetoFront> stationFront) {
+        this(timeTable, date, arrStationId, stationFront, null);
+    }
+
+    /**
+     * @return the compiled connections the profile was computed from, or the ones of the
+     *         timetable for its date if it was not given any
+     */
+    @Override
+    public CompiledConnections compiledConnections() {
+        return compiledConnections != null ? compiledConnections : timeTable.compiledConnectionsFor(date);
+    }
+
     /**
      * @return the connections corresponding to the profile
      */
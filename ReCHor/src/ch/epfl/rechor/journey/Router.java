@@ -2,12 +2,15 @@ package ch.epfl.rechor.journey;
 
 import ch.epfl.rechor.Bits32_24_8;
 import ch.epfl.rechor.PackedRange;
-import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.CompiledConnections;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.Transfers;
 
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * The Router class is responsible for creating a profile of all optimal
@@ -15,11 +18,25 @@ import java.util.Arrays;
  * specific day. It uses timetable data to compute the best routes based on
  * various criteria such as departure and arrival times, number of changes, and
  * intermediate stops.
+ * <p>
+ * The profile of a single destination is computed by one sequential scan of the
+ * connections, by decreasing departure time. Every connection reads the frontiers
+ * written by the connections departing after it, and whether it updates the frontiers
+ * of the stations depends on the frontier of its departure station at that moment, so
+ * the connections cannot be split into departure-time bands scanned concurrently and
+ * merged afterwards without changing the profile. The profiles of several destinations
+ * are independent, and are computed in parallel by
+ * {@link #profiles(LocalDate, List, ForkJoinPool)}.
  *
  * @param timeTable The timetable containing all connections and transfers.
  */
 public record Router(TimeTable timeTable) {
 
+    /**
+     * The maximal number of destinations whose profiles are computed in the same scan
+     */
+    private static final int BATCH_LANES = 16;
+
     /**
      * Generates a profile of all optimal journeys to the specified destination
      * station on the given date.
@@ -29,61 +46,255 @@ public record Router(TimeTable timeTable) {
      * @return A Profile object containing all optimal journeys.
      */
     public Profile profile(LocalDate date, int destinationId) {
-        Profile.Builder profile = new Profile.Builder(timeTable, date, destinationId);
-        Connections connections = timeTable.connectionsFor(date);
+        return profile(date, destinationId, new RouterWorkspace());
+    }
+
+    /**
+     * Generates a profile of all optimal journeys to the specified destination
+     * station on the given date, reusing the memory of the given workspace.
+     *
+     * @param date          The date for which the profile is generated.
+     * @param destinationId The ID of the destination station.
+     * @param workspace     The workspace whose arrays and fronts are reused, which
+     *                      must not be used concurrently by another query.
+     * @return A Profile object containing all optimal journeys.
+     */
+    public Profile profile(LocalDate date, int destinationId, RouterWorkspace workspace) {
+        ParetoFrontStore fronts = workspace.fronts(timeTable, timeTable.tripsFor(date).size());
+        CompiledConnections connections = timeTable.compiledConnectionsFor(date);
         Transfers transfers = timeTable.transfers();
         int numberOfStations = timeTable.stations().size();
 
-        int[] walkable = initializeWalkableArray(transfers, destinationId, numberOfStations);
+        int[] walkable = workspace.walkable(transfers, destinationId, numberOfStations);
 
         // i is the current connection id
         for (int i = 0; i < connections.size(); i++) {
-            ParetoFront.Builder pareto = new ParetoFront.Builder();
-            int currentConnectionId = i;
-            int currentTripId = connections.tripId(currentConnectionId);
-            int currentArrStation = timeTable.stationId(connections.arrStopId(i));
-            int currentDepStation = timeTable.stationId(connections.depStopId(i));
+            int currentArrStation = connections.arrStationId(i);
+            int currentDepStation = connections.depStationId(i);
+            processConnection(workspace.connectionFront(), workspace.borderFront(), fronts, walkable, transfers, connections,
+                    i, currentDepStation, currentArrStation);
+        }
+        return new Profile(timeTable, date, destinationId, fronts.freezeStations(), connections);
+    }
 
-            handleWalkableStations(pareto, walkable, currentArrStation, connections, currentConnectionId);
+    /**
+     * Generates a profile of the optimal journeys to the specified destination station
+     * on the given date, complete only for the journeys departing from the given station
+     * no earlier than the given time, reusing the memory of the given workspace.
+     * <p>
+     * A connection only adds journeys to the frontier of the departure station if that
+     * station can walk to the station it departs from, departing the transfer time
+     * before it. The scan therefore stops at the first connection that can no longer add
+     * to that frontier a journey departing no earlier than the given time (see
+     * {@link #earliestUsefulDepMins}). The journeys of the departure station departing no
+     * earlier than the given time are exactly those of the full profile; the frontiers of
+     * the other stations, and its journeys departing earlier, are incomplete.
+     * <p>
+     * The connections departing after the window are all scanned: the frontiers they
+     * feed decide which connections of the window fully dominate their departure
+     * station, so skipping them, or the ones arriving too late, would change the
+     * journeys of the window.
+     *
+     * @param date          The date for which the profile is generated.
+     * @param destinationId The ID of the destination station.
+     * @param depStationId  The ID of the departure station.
+     * @param minDepMins    The earliest departure time, in minutes.
+     * @param workspace     The workspace whose arrays and fronts are reused, which
+     *                      must not be used concurrently by another query.
+     * @return A Profile object containing the optimal journeys departing from the given
+     *         station no earlier than the given time.
+     */
+    public Profile profileFrom(LocalDate date, int destinationId, int depStationId, int minDepMins,
+            RouterWorkspace workspace) {
+        int tripCount = timeTable.tripsFor(date).size();
+        ParetoFrontStore fronts = workspace.fronts(timeTable, tripCount);
+        CompiledConnections connections = timeTable.compiledConnectionsFor(date);
+        Transfers transfers = timeTable.transfers();
+        int numberOfStations = timeTable.stations().size();
 
-            handleTripFront(pareto, profile, currentTripId);
+        int[] walkable = workspace.walkable(transfers, destinationId, numberOfStations);
 
-            handleStationFront(pareto, profile, currentArrStation, connections, currentConnectionId);
+        int end = firstDepartingBefore(connections, 0, earliestUsefulDepMins(transfers, depStationId, minDepMins));
+        for (int i = 0; i < end; i++) {
+            int currentArrStation = connections.arrStationId(i);
+            int currentDepStation = connections.depStationId(i);
+            processConnection(workspace.connectionFront(), workspace.borderFront(), fronts, walkable, transfers, connections,
+                    i, currentDepStation, currentArrStation);
+        }
+        return new Profile(timeTable, date, destinationId, fronts.freezeStations(), connections);
+    }
 
-            if (pareto.isEmpty()) {
-                continue;
+    /**
+     * Computes the earliest departure time of the connections that can add to the
+     * frontier of the given station a journey departing no earlier than the given time.
+     * <p>
+     * A journey starting with a connection of the station itself departs with that
+     * connection, while its criteria depart the duration of the change within the
+     * station before it. The criteria of such journeys therefore depart no earlier than
+     * the given time minus that duration, and come from connections departing at least
+     * the shortest transfer from the station after that.
+     *
+     * @param transfers    The transfers data from the timetable.
+     * @param depStationId The ID of the departure station.
+     * @param minDepMins   The earliest departure time, in minutes.
+     * @return The earliest useful departure time, in minutes, or
+     *         {@link Integer#MAX_VALUE} if no transfer departs from the station.
+     */
+    private static int earliestUsefulDepMins(Transfers transfers, int depStationId, int minDepMins) {
+        int packedInterval = transfers.departingFrom(depStationId);
+        int shortest = Integer.MAX_VALUE;
+        int withinStation = 0;
+        for (int i = PackedRange.startInclusive(packedInterval); i < PackedRange.endExclusive(packedInterval); i++) {
+            int transferId = transfers.departingTransferId(i);
+            shortest = Math.min(shortest, transfers.minutes(transferId));
+            if (transfers.arrStationId(transferId) == depStationId) {
+                withinStation = transfers.minutes(transferId);
             }
-            updateTripBorder(pareto, profile, currentTripId);
+        }
+        return shortest == Integer.MAX_VALUE ? Integer.MAX_VALUE : minDepMins - withinStation + shortest;
+    }
+
+    /**
+     * Generates the profiles of all optimal journeys to each of the given destination
+     * stations on the given date, identical to the ones generated one at a time.
+     * <p>
+     * The destinations are split into shards of at most {@value #BATCH_LANES}, each
+     * shard being computed by a task of the given pool in a single scan of the
+     * connections: every connection is read once and then processed for each
+     * destination of the shard, in its own lane of fronts.
+     *
+     * @param date           The date for which the profiles are generated.
+     * @param destinationIds The IDs of the destination stations.
+     * @param pool           The pool computing the shards.
+     * @return The profiles of the given destinations, in the same order.
+     */
+    public List<Profile> profiles(LocalDate date, List<Integer> destinationIds, ForkJoinPool pool) {
+        CompiledConnections connections = timeTable.compiledConnectionsFor(date);
+        int tripCount = timeTable.tripsFor(date).size();
+
+        List<ForkJoinTask<List<Profile>>> shards = new ArrayList<>();
+        for (int from = 0; from < destinationIds.size(); from += BATCH_LANES) {
+            List<Integer> shard = List.copyOf(
+                    destinationIds.subList(from, Math.min(from + BATCH_LANES, destinationIds.size())));
+            shards.add(pool.submit(() -> profilesInOneScan(date, shard, connections, tripCount)));
+        }
+
+        List<Profile> profiles = new ArrayList<>(destinationIds.size());
+        for (ForkJoinTask<List<Profile>> shard : shards) {
+            profiles.addAll(shard.join());
+        }
+        return List.copyOf(profiles);
+    }
 
-            int augmentedDepMins = connections.depMins(currentConnectionId);
-            if (profile.forStation(currentDepStation) != null
-                    && profile.forStation(currentDepStation).fullyDominates(pareto, augmentedDepMins)) {
-                continue;
+    /**
+     * Generates the profiles of the given destinations in a single scan of the
+     * connections, with one lane of fronts per destination.
+     *
+     * @param date           The date for which the profiles are generated.
+     * @param destinationIds The IDs of the destination stations.
+     * @param connections    The connections data of the date.
+     * @param tripCount      The number of trips of the date.
+     * @return The profiles of the given destinations, in the same order.
+     */
+    private List<Profile> profilesInOneScan(LocalDate date, List<Integer> destinationIds,
+            CompiledConnections connections, int tripCount) {
+        Transfers transfers = timeTable.transfers();
+        int numberOfStations = timeTable.stations().size();
+        int lanes = destinationIds.size();
+
+        RouterWorkspace[] workspaces = new RouterWorkspace[lanes];
+        ParetoFrontStore[] fronts = new ParetoFrontStore[lanes];
+        int[][] walkable = new int[lanes][];
+        for (int lane = 0; lane < lanes; lane++) {
+            workspaces[lane] = new RouterWorkspace();
+            fronts[lane] = workspaces[lane].fronts(timeTable, tripCount);
+            walkable[lane] = workspaces[lane].walkable(transfers, destinationIds.get(lane), numberOfStations);
+        }
+
+        for (int i = 0; i < connections.size(); i++) {
+            int currentArrStation = connections.arrStationId(i);
+            int currentDepStation = connections.depStationId(i);
+            for (int lane = 0; lane < lanes; lane++) {
+                processConnection(workspaces[lane].connectionFront(), workspaces[lane].borderFront(), fronts[lane], walkable[lane], transfers,
+                        connections, i, currentDepStation, currentArrStation);
             }
-            updateStationBorders(pareto, profile, transfers, connections, currentConnectionId, currentDepStation);
         }
-        return profile.build();
+
+        List<Profile> profiles = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            profiles.add(new Profile(timeTable, date, destinationIds.get(lane), fronts[lane].freezeStations(),
+                    connections));
+        }
+        return profiles;
     }
 
     /**
-     * Initializes the walkable array, which stores the walking times from each
-     * station to the destination station.
+     * Processes a single connection, updating the trip and station fronts with the
+     * journeys starting with it.
      *
-     * @param transfers        The transfers data from the timetable.
-     * @param destinationId    The ID of the destination station.
-     * @param numberOfStations The total number of stations in the network.
-     * @return An array of walking times to the destination station.
+     * @param pareto              The empty Pareto front builder of the connection.
+     * @param border              The empty Pareto front builder receiving the
+     *                            journeys added to the station fronts.
+     * @param fronts              The store containing the station and trip fronts.
+     * @param walkable            The array of walking times to the destination
+     *                            station.
+     * @param transfers           The transfers data from the timetable.
+     * @param connections         The connections data from the timetable.
+     * @param currentConnectionId The ID of the current connection.
+     * @param currentDepStation   The departure station of the current connection.
+     * @param currentArrStation   The arrival station of the current connection.
      */
-    private int[] initializeWalkableArray(Transfers transfers, int destinationId, int numberOfStations) {
-        int[] walkable = new int[numberOfStations];
-        Arrays.fill(walkable, -1);
-        int packedInterval = transfers.arrivingAt(destinationId);
-        for (int i = PackedRange.startInclusive(packedInterval); i < PackedRange.endExclusive(packedInterval); i++) {
-            walkable[transfers.depStationId(i)] = transfers.minutes(i);
+    private void processConnection(ParetoFront.Builder pareto, ParetoFront.Builder border,
+            ParetoFrontStore fronts, int[] walkable,
+            Transfers transfers, CompiledConnections connections, int currentConnectionId, int currentDepStation,
+            int currentArrStation) {
+        int currentTripId = connections.tripId(currentConnectionId);
+
+        handleWalkableStations(pareto, walkable, currentArrStation, connections, currentConnectionId);
+
+        handleTripFront(pareto, fronts, currentTripId);
+
+        handleStationFront(pareto, fronts, currentArrStation, connections, currentConnectionId);
+
+        if (pareto.isEmpty()) {
+            return;
+        }
+        updateTripBorder(pareto, fronts, currentTripId);
+
+        int augmentedDepMins = connections.depMins(currentConnectionId);
+        if (fronts.fullyDominates(currentDepStation, pareto, augmentedDepMins)) {
+            return;
         }
-        return walkable;
+        updateStationBorders(pareto, border, fronts, transfers, connections, currentConnectionId,
+                currentDepStation);
     }
 
+
+    /**
+     * Finds, by binary search, the first connection departing before the given time,
+     * the connections being sorted by decreasing departure time.
+     *
+     * @param connections The connections data from the timetable.
+     * @param from        The ID of the first connection searched.
+     * @param depMins     The departure time, in minutes.
+     * @return The ID of the first connection, starting at the given one, departing
+     *         before the given time, or the number of connections if there is none.
+     */
+    private static int firstDepartingBefore(CompiledConnections connections, int from, int depMins) {
+        int low = from;
+        int high = connections.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (connections.depMins(middle) >= depMins) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+
     /**
      * Handles the addition of walkable stations to the Pareto front.
      *
@@ -95,7 +306,7 @@ public record Router(TimeTable timeTable) {
      * @param currentConnectionId The ID of the current connection.
      */
     private void handleWalkableStations(ParetoFront.Builder pareto, int[] walkable, int currentArrStation,
-            Connections connections, int currentConnectionId) {
+            CompiledConnections connections, int currentConnectionId) {
         if (walkable[currentArrStation] != -1) {
             pareto.add(PackedCriteria.pack(connections.arrMins(currentConnectionId) + walkable[currentArrStation], 0,
                     Bits32_24_8.pack(currentConnectionId, 0)));
@@ -106,14 +317,11 @@ public record Router(TimeTable timeTable) {
      * Adds the trips associated with the current trip ID to the Pareto front.
      *
      * @param pareto        The Pareto front builder.
-     * @param profile       The profile builder containing trip data.
+     * @param fronts        The store containing the trip fronts.
      * @param currentTripId The ID of the current trip.
      */
-    private void handleTripFront(ParetoFront.Builder pareto, Profile.Builder profile, int currentTripId) {
-        ParetoFront.Builder tripFront = profile.forTrip(currentTripId);
-        if (tripFront != null) {
-            pareto.addAll(tripFront);
-        }
+    private void handleTripFront(ParetoFront.Builder pareto, ParetoFrontStore fronts, int currentTripId) {
+        fronts.addAllTo(fronts.tripEntry(currentTripId), pareto);
     }
 
     /**
@@ -121,90 +329,85 @@ public record Router(TimeTable timeTable) {
      * journeys to the Pareto front.
      *
      * @param pareto              The Pareto front builder.
-     * @param profile             The profile builder containing station data.
+     * @param fronts              The store containing the station fronts.
      * @param currentArrStation   The current arrival station.
      * @param connections         The connections data from the timetable.
      * @param currentConnectionId The ID of the current connection.
      */
-    private void handleStationFront(ParetoFront.Builder pareto, Profile.Builder profile, int currentArrStation,
-            Connections connections, int currentConnectionId) {
-        ParetoFront.Builder stationFront = profile.forStation(currentArrStation);
-        if (stationFront != null) {
-            stationFront.forEach(t -> {
-                if (PackedCriteria.depMins(t) >= connections.arrMins(currentConnectionId)) {
-                    pareto.add(PackedCriteria.arrMins(t), PackedCriteria.changes(t) + 1,
-                            Bits32_24_8.pack(currentConnectionId, 0));
-                }
-            });
-        }
+    private void handleStationFront(ParetoFront.Builder pareto, ParetoFrontStore fronts, int currentArrStation,
+            CompiledConnections connections, int currentConnectionId) {
+        fronts.forEach(currentArrStation, t -> {
+            if (PackedCriteria.depMins(t) >= connections.arrMins(currentConnectionId)) {
+                pareto.add(PackedCriteria.arrMins(t), PackedCriteria.changes(t) + 1,
+                        Bits32_24_8.pack(currentConnectionId, 0));
+            }
+        });
     }
 
     /**
      * Updates the trip border in the profile with the current Pareto front.
      *
      * @param pareto        The Pareto front builder.
-     * @param profile       The profile builder containing trip data.
+     * @param fronts        The store containing the trip fronts.
      * @param currentTripId The ID of the current trip.
      */
-    private void updateTripBorder(ParetoFront.Builder pareto, Profile.Builder profile, int currentTripId) {
-        ParetoFront.Builder tripFront = profile.forTrip(currentTripId);
-        if (tripFront != null) {
-            tripFront.addAll(pareto);
-        } else {
-            profile.setForTrip(currentTripId, pareto);
-        }
+    private void updateTripBorder(ParetoFront.Builder pareto, ParetoFrontStore fronts, int currentTripId) {
+        fronts.addAll(fronts.tripEntry(currentTripId), pareto);
     }
 
     /**
      * Updates the station borders in the profile with the current Pareto front.
+     * <p>
+     * The journeys continuing with the trip of the current connection are selected and
+     * repacked once, then added to the front of every station from which the departure
+     * station can be reached on foot, with the corresponding departure time.
      *
      * @param pareto              The Pareto front builder.
-     * @param profile             The profile builder containing station data.
+     * @param border              The empty Pareto front builder receiving the
+     *                            selected journeys.
+     * @param fronts              The store containing the station fronts.
      * @param transfers           The transfers data from the timetable.
      * @param connections         The connections data from the timetable.
      * @param currentConnectionId The ID of the current connection.
      * @param currentDepStation   The current departure station.
      */
-    private void updateStationBorders(ParetoFront.Builder pareto, Profile.Builder profile, Transfers transfers,
-            Connections connections, int currentConnectionId, int currentDepStation) {
+    private void updateStationBorders(ParetoFront.Builder pareto, ParetoFront.Builder border,
+            ParetoFrontStore fronts, Transfers transfers, CompiledConnections connections,
+            int currentConnectionId, int currentDepStation) {
+        int currentTripId = connections.tripId(currentConnectionId);
+        pareto.forEach(t -> {
+            int firstConnectionId = Bits32_24_8.unpack24(PackedCriteria.payload(t));
+            if (connections.tripId(firstConnectionId) != currentTripId) {
+                return;
+            }
+            int numOfIntermediateStops = intermediateStops(connections, currentConnectionId, firstConnectionId);
+            int updatedPayload = Bits32_24_8.pack(currentConnectionId, numOfIntermediateStops);
+            border.add(PackedCriteria.pack(PackedCriteria.arrMins(t), PackedCriteria.changes(t), updatedPayload));
+        });
+        if (border.isEmpty()) {
+            return;
+        }
+
         int allChanges = transfers.arrivingAt(currentDepStation);
         for (int j = PackedRange.startInclusive(allChanges); j < PackedRange.endExclusive(allChanges); j++) {
             int d = connections.depMins(currentConnectionId) - transfers.minutes(j);
             int fromStation = transfers.depStationId(j);
-
-            pareto.forEach(t -> {
-                int firstConnectionId = Bits32_24_8.unpack24(PackedCriteria.payload(t));
-                if (connections.tripId(firstConnectionId) != connections.tripId(currentConnectionId)) {
-                    return;
-                }
-                int numOfIntermediateStops = intermediateStops(connections, currentConnectionId, firstConnectionId);
-                int updatedPayload = Bits32_24_8.pack(currentConnectionId, numOfIntermediateStops);
-                long tuple = PackedCriteria.withDepMins(
-                        PackedCriteria.pack(PackedCriteria.arrMins(t), PackedCriteria.changes(t), updatedPayload), d);
-                if (profile.forStation(fromStation) != null) {
-                    profile.forStation(fromStation).add(tuple);
-                } else {
-                    ParetoFront.Builder newFront = new ParetoFront.Builder().add(tuple);
-                    profile.setForStation(fromStation, newFront);
-                }
-            });
+            for (int i = 0; i < border.size(); i++) {
+                fronts.add(fromStation, PackedCriteria.withDepMins(border.get(i), d));
+            }
         }
     }
 
     /**
-     * Calculates the number of intermediate stops between two connections.
+     * Calculates the number of intermediate stops between two connections of the same
+     * trip, from their positions in the trip.
      *
      * @param connections The connections data from the timetable.
      * @param from        The starting connection ID.
      * @param to          The ending connection ID.
      * @return The number of intermediate stops between the two connections.
      */
-    private int intermediateStops(Connections connections, int from, int to) {
-        int numOfStops = 0;
-        while (from != to) {
-            from = connections.nextConnectionId(from);
-            numOfStops++;
-        }
-        return numOfStops;
+    private int intermediateStops(CompiledConnections connections, int from, int to) {
+        return connections.tripPos(to) - connections.tripPos(from);
     }
 }
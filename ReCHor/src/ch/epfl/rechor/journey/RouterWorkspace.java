@@ -0,0 +1,124 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.util.Arrays;
+
+/**
+ * The working memory of a Router, which can be kept between queries so that the
+ * frontier store and the walking times array are reused
+ * instead of being allocated again for every profile.
+ * <p>
+ * A workspace is not thread-safe: it is meant to be held by a single thread (or
+ * worker), and used by one profile computation at a time.
+ */
+public final class RouterWorkspace {
+
+    /**
+     * The timetable the frontier store was created for
+     */
+    private TimeTable timeTable;
+
+    /**
+     * The store of the station and trip frontiers, created on first use and reset for the
+     * following queries
+     */
+    private ParetoFrontStore fronts;
+
+    /**
+     * The walking times from each station to the current destination, -1 if there is none
+     */
+    private int[] walkable;
+
+    /**
+     * The transfers and the destination the walking times were last computed for, -1 if
+     * there is none
+     */
+    private Transfers walkableTransfers;
+    private int walkableDestinationId;
+
+    /**
+     * The Pareto front builder used for the connection currently being processed
+     */
+    private final ParetoFront.Builder connectionFront;
+
+    /**
+     * The Pareto front builder holding the journeys of the current connection added to
+     * the station fronts
+     */
+    private final ParetoFront.Builder borderFront;
+
+    /**
+     * Constructs an empty workspace, whose arrays are allocated on first use
+     */
+    public RouterWorkspace() {
+        this.walkable = new int[0];
+        this.walkableDestinationId = -1;
+        this.connectionFront = new ParetoFront.Builder();
+        this.borderFront = new ParetoFront.Builder();
+    }
+
+    /**
+     * @param timeTable the timetable of the query
+     * @param tripCount the number of trips of the date of the query
+     * @return an empty frontier store for the given query, reusing the previous one if it
+     *         was created for the same timetable
+     */
+    ParetoFrontStore fronts(TimeTable timeTable, int tripCount) {
+        if (fronts == null || this.timeTable != timeTable) {
+            this.timeTable = timeTable;
+            fronts = new ParetoFrontStore(timeTable.stations().size(), tripCount);
+        } else {
+            fronts.reset(tripCount);
+        }
+        return fronts;
+    }
+
+    /**
+     * Returns the walking times from each station to the destination station, only
+     * clearing the entries of the previous destination when the array is reused for the
+     * same transfers, and clearing all of them otherwise.
+     *
+     * @param transfers        the transfers data from the timetable
+     * @param destinationId    the ID of the destination station
+     * @param numberOfStations the total number of stations in the network
+     * @return an array of walking times to the destination station, -1 if there is none
+     */
+    int[] walkable(Transfers transfers, int destinationId, int numberOfStations) {
+        if (walkable.length != numberOfStations) {
+            walkable = new int[numberOfStations];
+            Arrays.fill(walkable, -1);
+        } else if (walkableTransfers != transfers) {
+            Arrays.fill(walkable, -1);
+        } else if (walkableDestinationId != -1) {
+            int previousInterval = transfers.arrivingAt(walkableDestinationId);
+            for (int i = PackedRange.startInclusive(previousInterval);
+                 i < PackedRange.endExclusive(previousInterval); i++) {
+                walkable[transfers.depStationId(i)] = -1;
+            }
+        }
+        int packedInterval = transfers.arrivingAt(destinationId);
+        for (int i = PackedRange.startInclusive(packedInterval); i < PackedRange.endExclusive(packedInterval); i++) {
+            walkable[transfers.depStationId(i)] = transfers.minutes(i);
+        }
+        walkableTransfers = transfers;
+        walkableDestinationId = destinationId;
+        return walkable;
+    }
+
+    /**
+     * @return the cleared Pareto front builder of the connection being processed
+     */
+    ParetoFront.Builder connectionFront() {
+        return connectionFront.clear();
+    }
+
+    /**
+     * @return the cleared Pareto front builder of the journeys added to the station fronts
+     */
+    ParetoFront.Builder borderFront() {
+        return borderFront.clear();
+    }
+}
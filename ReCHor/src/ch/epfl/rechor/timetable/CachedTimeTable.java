@@ -1,27 +1,73 @@
 package ch.epfl.rechor.timetable;
 
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.journey.Stop;
+
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Represents a timetable stored in cache
+ * <p>
+ * The trips and connections of the most recently used days are kept, up to a given
+ * number of days, the least recently used one being evicted first. Days are only evicted
+ * once a new day has been loaded, and a day whose files do not exist is not kept, so
+ * that asking for a day the timetable does not cover never evicts another one. The
+ * cache can be shared between threads: the data of a day is loaded only once even if
+ * several threads ask for it at the same time, without blocking the threads asking for
+ * other days. Locks are used rather than monitors, so that virtual threads waiting for
+ * a day, like the ones of a {@link TimeTablePrefetcher}, do not pin their carrier.
+ * <p>
+ * The stops are also kept once built, so that all the journeys going through a stop
+ * share the same instance.
  * @author Karam Fakhouri (374510)
  */
 public class CachedTimeTable implements TimeTable{
 
+    /**
+     * The number of days kept by default, enough for a day and its two neighbours
+     */
+    public static final int DEFAULT_CAPACITY = 3;
+
     private final TimeTable delegate;
-    private Connections connections;
-    private Trips trips;
-    private LocalDate connectionsDate;
-    private LocalDate tripsDate;
+    private final int capacity;
+    private final Map<LocalDate, Day> days;
+    private final ReentrantLock daysLock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
 
     /**
-     * Constructor of the cached timeTable
+     * The stops built so far, indexed by stop index, null for the ones not built yet
+     */
+    private volatile Stop[] stops;
+
+    /**
+     * Constructor of the cached timeTable, keeping {@link #DEFAULT_CAPACITY} days
      * @param table table to cache
      */
     public CachedTimeTable(TimeTable table){
+        this(table, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor of the cached timeTable
+     * @param table table to cache
+     * @param capacity the maximum number of days kept
+     * @throws IllegalArgumentException if the capacity is not strictly positive
+     */
+    public CachedTimeTable(TimeTable table, int capacity){
+        Preconditions.checkArgument(capacity > 0);
         delegate = table;
-        connections = null;
-        trips = null;
+        this.capacity = capacity;
+        days = new LinkedHashMap<>(capacity + 1, 1f, true);
     }
 
     /**
@@ -70,11 +116,7 @@ public class CachedTimeTable implements TimeTable{
      */
     @Override
     public Trips tripsFor(LocalDate date) {
-        if (trips == null || !tripsDate.equals(date)){
-            trips = delegate.tripsFor(date);
-            tripsDate = date;
-        }
-        return trips;
+        return day(date).trips();
     }
 
     /**
@@ -83,10 +125,203 @@ public class CachedTimeTable implements TimeTable{
      */
     @Override
     public Connections connectionsFor(LocalDate date) {
-        if (connections == null || !connectionsDate.equals(date)){
-            connections = delegate.connectionsFor(date);
-            connectionsDate = date;
+        return day(date).connections();
+    }
+
+    /**
+     * @param date the day
+     * @return the connections on the active schedule of the given day, compiled once by
+     *         the cached timetable and kept along with them
+     */
+    @Override
+    public CompiledConnections compiledConnectionsFor(LocalDate date) {
+        return day(date).compiledConnections();
+    }
+
+    /**
+     * @param date        the day
+     * @param connections the connections of the given day
+     * @return the given connections, compiled by the underlying timetable
+     */
+    @Override
+    public CompiledConnections compiledConnectionsFor(LocalDate date, Connections connections) {
+        return delegate.compiledConnectionsFor(date, connections);
+    }
+
+    /**
+     * @param stopId the stop index
+     * @return the stop with the given index, built the first time it is asked for
+     */
+    @Override
+    public Stop stop(int stopId) {
+        Stop[] stops = this.stops;
+        if (stops == null) {
+            stops = new Stop[stations().size() + platforms().size()];
+            this.stops = stops;
+        }
+        // Stops are immutable, so a stop built twice by concurrent threads is harmless
+        Stop stop = stops[stopId];
+        if (stop == null) {
+            stop = delegate.stop(stopId);
+            stops[stopId] = stop;
+        }
+        return stop;
+    }
+
+    /**
+     * @return the number of requests for the data of a day that was already in the cache
+     */
+    public long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of days that were added to the cache, each counted once however
+     *         many of its data were then loaded
+     */
+    public long missCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of days evicted from the cache
+     */
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @param date the day
+     * @return the cached data of the given day, marked as the most recently used
+     */
+    private Day day(LocalDate date) {
+        daysLock.lock();
+        try {
+            Day day = days.get(date);
+            if (day == null) {
+                misses.incrementAndGet();
+                day = new Day(date);
+                days.put(date, day);
+            } else {
+                hits.incrementAndGet();
+            }
+            return day;
+        } finally {
+            daysLock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the least recently used days beyond the capacity, once the given day has
+     * loaded its first data
+     *
+     * @param loaded the day, which is kept
+     */
+    private void evictBeyondCapacity(Day loaded) {
+        daysLock.lock();
+        try {
+            Iterator<Day> iterator = days.values().iterator();
+            while (days.size() > capacity && iterator.hasNext()) {
+                if (iterator.next() != loaded) {
+                    iterator.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            daysLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the given day, which did not load any data, from the cache
+     *
+     * @param day the day
+     */
+    private void forget(Day day) {
+        daysLock.lock();
+        try {
+            days.remove(day.date, day);
+        } finally {
+            daysLock.unlock();
+        }
+    }
+
+    /**
+     * The data of a day, each loaded the first time it is asked for, the compiled
+     * connections being compiled from the loaded connections
+     */
+    private final class Day {
+        private final LocalDate date;
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean loaded;
+        private Trips trips;
+        private Connections connections;
+        private CompiledConnections compiledConnections;
+
+        private Day(LocalDate date) {
+            this.date = date;
+        }
+
+        Trips trips() {
+            lock.lock();
+            try {
+                if (trips == null) {
+                    trips = load(() -> delegate.tripsFor(date));
+                }
+                return trips;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Connections connections() {
+            lock.lock();
+            try {
+                if (connections == null) {
+                    connections = load(() -> delegate.connectionsFor(date));
+                }
+                return connections;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompiledConnections compiledConnections() {
+            lock.lock();
+            try {
+                if (compiledConnections == null) {
+                    Connections loadedConnections = connections();
+                    compiledConnections = load(() -> delegate.compiledConnectionsFor(date, loadedConnections));
+                }
+                return compiledConnections;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Loads data of the day, with its lock held; the first data loaded makes room for
+         * the day in the cache, and a day whose files do not exist is forgotten
+         *
+         * @param loader the loader of the data
+         * @return the loaded data
+         * @throws UncheckedIOException if the data cannot be read
+         */
+        private <T> T load(Supplier<T> loader) {
+            T data;
+            try {
+                data = loader.get();
+            } catch (UncheckedIOException e) {
+                if (!loaded && e.getCause() instanceof NoSuchFileException) {
+                    forget(this);
+                }
+                throw e;
+            }
+            if (!loaded) {
+                loaded = true;
+                evictBeyondCapacity(this);
+            }
+            return data;
         }
-        return connections;
     }
 }
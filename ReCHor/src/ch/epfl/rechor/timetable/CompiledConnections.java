@@ -0,0 +1,204 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.Preconditions;
+
+/**
+ * The connections of a given day, whose stations, times and trips are copied once into
+ * arrays so that they can be read without going through the timetable for every
+ * connection. The other attributes are read from the connections they were compiled
+ * from.
+ * <p>
+ * The connections are also indexed by trip and position in their trip, so that the
+ * connection a given number of stops after another one of the same trip is found in
+ * constant time.
+ */
+public final class CompiledConnections implements Connections {
+
+    /**
+     * The connections the view was compiled from
+     */
+    private final Connections connections;
+
+    /**
+     * The station indices of the departure and arrival stops of each connection
+     */
+    private final int[] depStationIds;
+    private final int[] arrStationIds;
+
+    /**
+     * The departure and arrival times of each connection, in minutes after midnight
+     */
+    private final int[] depMins;
+    private final int[] arrMins;
+
+    /**
+     * The index of the trip of each connection, and its position in the trip
+     */
+    private final int[] tripIds;
+    private final int[] tripPositions;
+
+    /**
+     * The index, in the connections sorted by trip and position, of the first connection
+     * of each trip, followed by the number of connections
+     */
+    private final int[] tripStarts;
+
+    /**
+     * The indices of the connections sorted by trip and position
+     */
+    private final int[] tripConnectionIds;
+
+    /**
+     * Compiles the given connections of the given timetable
+     *
+     * @param timeTable   the timetable whose stops the connections refer to
+     * @param connections the connections of a given day
+     */
+    public CompiledConnections(TimeTable timeTable, Connections connections) {
+        this.connections = connections;
+        int size = connections.size();
+        this.depStationIds = new int[size];
+        this.arrStationIds = new int[size];
+        this.depMins = new int[size];
+        this.arrMins = new int[size];
+        this.tripIds = new int[size];
+        this.tripPositions = new int[size];
+        int tripCount = 0;
+        for (int i = 0; i < size; i++) {
+            depStationIds[i] = timeTable.stationId(connections.depStopId(i));
+            arrStationIds[i] = timeTable.stationId(connections.arrStopId(i));
+            depMins[i] = connections.depMins(i);
+            arrMins[i] = connections.arrMins(i);
+            tripIds[i] = connections.tripId(i);
+            tripPositions[i] = connections.tripPos(i);
+            tripCount = Math.max(tripCount, tripIds[i] + 1);
+        }
+
+        this.tripStarts = new int[tripCount + 1];
+        for (int tripId : tripIds) {
+            tripStarts[tripId + 1] += 1;
+        }
+        for (int t = 0; t < tripCount; t++) {
+            tripStarts[t + 1] += tripStarts[t];
+        }
+        this.tripConnectionIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            tripConnectionIds[tripStarts[tripIds[i]] + tripPositions[i]] = i;
+        }
+    }
+
+    /**
+     * Compiles the given connections with their stations and trip index computed in
+     * advance, as stored in a compiled timetable
+     *
+     * @param connections       the connections of a given day
+     * @param depStationIds     the station index of the departure stop of each connection
+     * @param arrStationIds     the station index of the arrival stop of each connection
+     * @param tripStarts        the index of the first connection of each trip, in the
+     *                          connections sorted by trip and position, followed by the
+     *                          number of connections
+     * @param tripConnectionIds the indices of the connections sorted by trip and position
+     * @throws IllegalArgumentException if the sizes of the arrays do not match the
+     *                                  connections
+     */
+    public CompiledConnections(Connections connections, int[] depStationIds, int[] arrStationIds,
+                               int[] tripStarts, int[] tripConnectionIds) {
+        int size = connections.size();
+        Preconditions.checkArgument(depStationIds.length == size && arrStationIds.length == size
+                && tripConnectionIds.length == size && tripStarts.length > 0
+                && tripStarts[tripStarts.length - 1] == size);
+        this.connections = connections;
+        this.depStationIds = depStationIds;
+        this.arrStationIds = arrStationIds;
+        this.depMins = new int[size];
+        this.arrMins = new int[size];
+        this.tripIds = new int[size];
+        this.tripPositions = new int[size];
+        for (int i = 0; i < size; i++) {
+            depMins[i] = connections.depMins(i);
+            arrMins[i] = connections.arrMins(i);
+            tripIds[i] = connections.tripId(i);
+            tripPositions[i] = connections.tripPos(i);
+        }
+        this.tripStarts = tripStarts;
+        this.tripConnectionIds = tripConnectionIds;
+    }
+
+    /**
+     * @param id the index
+     * @return the index of the station of the starting stop of the given connection
+     * @throws IndexOutOfBoundsException if the index is less than 0 or greater than
+     *                                   or equal to the size returned by
+     * size()
+     */
+    public int depStationId(int id) {
+        return depStationIds[id];
+    }
+
+    /**
+     * @param id the index
+     * @return the index of the station of the arrival stop of the given connection
+     * @throws IndexOutOfBoundsException if the index is less than 0 or greater than
+     *                                   or equal to the size returned by
+     * size()
+     */
+    public int arrStationId(int id) {
+        return arrStationIds[id];
+    }
+
+    @Override
+    public int depStopId(int id) {
+        return connections.depStopId(id);
+    }
+
+    @Override
+    public int depMins(int id) {
+        return depMins[id];
+    }
+
+    @Override
+    public int arrStopId(int id) {
+        return connections.arrStopId(id);
+    }
+
+    @Override
+    public int arrMins(int id) {
+        return arrMins[id];
+    }
+
+    @Override
+    public int tripId(int id) {
+        return tripIds[id];
+    }
+
+    @Override
+    public int tripPos(int id) {
+        return tripPositions[id];
+    }
+
+    /**
+     * @param id    the index
+     * @param stops the number of stops
+     * @return the index of the connection of the same trip as the given one, departing
+     *         the given number of stops after it
+     * @throws IndexOutOfBoundsException if the index is less than 0 or greater than
+     *                                   or equal to the size returned by size(), or if
+     *                                   the trip has less stops after the connection
+     */
+    public int connectionIdAfter(int id, int stops) {
+        int tripId = tripIds[id];
+        int position = tripPositions[id] + stops;
+        Preconditions.checkIndex(tripStarts[tripId + 1] - tripStarts[tripId], position);
+        return tripConnectionIds[tripStarts[tripId] + position];
+    }
+
+    @Override
+    public int nextConnectionId(int id) {
+        return connections.nextConnectionId(id);
+    }
+
+    @Override
+    public int size() {
+        return tripIds.length;
+    }
+}
@@ -0,0 +1,455 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.journey.Stop;
+
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * A timetable whose connections of a given day also contain the late connections of the
+ * previous day and the early connections of the following one, so that journeys
+ * spanning midnight can be found.
+ * <p>
+ * The times of the connections of the previous and following days are shifted by one
+ * day, and their trips follow the ones of the given day: first the trips of the previous
+ * day, then the ones of the following day. Only the part of each of their trips
+ * departing no earlier than {@link #FIRST_DEP_MINS} or arriving no later than
+ * {@link #LAST_ARR_MINS} is kept, as a trip of its own. The connections and trips are
+ * read from the ones of the underlying timetable, only the order of the connections is
+ * stored.
+ * <p>
+ * The merged trips and connections of the most recently used days are kept, like the
+ * ones of a {@link CachedTimeTable}, so that the three underlying days are read and
+ * merged only once. A day whose files do not exist is considered to have no trips and
+ * no connections.
+ */
+public final class MultiDayTimeTable implements TimeTable {
+
+    /**
+     * The earliest departure time, relative to the given day, of the connections of the
+     * previous day that are kept, which leaves time to walk to them within the times
+     * allowed by the profiles
+     */
+    public static final int FIRST_DEP_MINS = -120;
+
+    /**
+     * The latest arrival time, relative to the given day, of the connections of the
+     * following day that are kept
+     */
+    public static final int LAST_ARR_MINS = 1440 + 6 * 60;
+
+    /**
+     * The number of minutes in a day
+     */
+    private static final int MINUTES_PER_DAY = 1440;
+
+    private final TimeTable delegate;
+    private final Map<LocalDate, MergedDay> days;
+
+    /**
+     * Constructs a timetable spanning midnight over the given one, keeping
+     * {@link CachedTimeTable#DEFAULT_CAPACITY} merged days
+     *
+     * @param delegate the timetable whose days are stitched together
+     */
+    public MultiDayTimeTable(TimeTable delegate) {
+        this(delegate, CachedTimeTable.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a timetable spanning midnight over the given one
+     *
+     * @param delegate the timetable whose days are stitched together
+     * @param capacity the maximum number of merged days kept
+     * @throws IllegalArgumentException if the capacity is not strictly positive
+     */
+    public MultiDayTimeTable(TimeTable delegate, int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        this.delegate = delegate;
+        this.days = new LinkedHashMap<>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, MergedDay> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Stations stations() {
+        return delegate.stations();
+    }
+
+    @Override
+    public StationAliases stationAliases() {
+        return delegate.stationAliases();
+    }
+
+    @Override
+    public Platforms platforms() {
+        return delegate.platforms();
+    }
+
+    @Override
+    public Routes routes() {
+        return delegate.routes();
+    }
+
+    @Override
+    public Transfers transfers() {
+        return delegate.transfers();
+    }
+
+    @Override
+    public Stop stop(int stopId) {
+        return delegate.stop(stopId);
+    }
+
+    /**
+     * @param date the day
+     * @return the trips of the given day, followed by the ones of the previous day and
+     *         the ones of the following day
+     */
+    @Override
+    public Trips tripsFor(LocalDate date) {
+        return day(date).trips();
+    }
+
+    /**
+     * @param date the day
+     * @return the connections of the given day, merged with the late connections of the
+     *         previous day and the early ones of the following day, sorted by decreasing
+     *         departure time
+     */
+    @Override
+    public Connections connectionsFor(LocalDate date) {
+        return day(date).connections();
+    }
+
+    /**
+     * @param date the day
+     * @return the merged connections of the given day, compiled once and kept along with
+     *         them
+     */
+    @Override
+    public CompiledConnections compiledConnectionsFor(LocalDate date) {
+        return day(date).compiledConnections();
+    }
+
+    /**
+     * @param date the day
+     * @return the merged data of the given day, marked as the most recently used
+     */
+    private MergedDay day(LocalDate date) {
+        synchronized (days) {
+            return days.computeIfAbsent(date, MergedDay::new);
+        }
+    }
+
+    /**
+     * @param date the day
+     * @return the trips of the given day, followed by the ones of the previous day and
+     *         the ones of the following day
+     */
+    private Trips mergeTrips(LocalDate date) {
+        Trips[] days = {delegate.tripsFor(date), tripsOrEmpty(date.minusDays(1)), tripsOrEmpty(date.plusDays(1))};
+        int[] offsets = {0, days[0].size(), days[0].size() + days[1].size()};
+        int size = offsets[2] + days[2].size();
+        return new Trips() {
+            @Override
+            public int routeId(int id) {
+                int day = dayOf(offsets, size, id);
+                return days[day].routeId(id - offsets[day]);
+            }
+
+            @Override
+            public String destination(int id) {
+                int day = dayOf(offsets, size, id);
+                return days[day].destination(id - offsets[day]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @param date the day
+     * @return the connections of the given day, merged with the late connections of the
+     *         previous day and the early ones of the following day, sorted by decreasing
+     *         departure time
+     */
+    private Connections mergeConnections(LocalDate date) {
+        Connections current = delegate.connectionsFor(date);
+        Connections previous = connectionsOrEmpty(date.minusDays(1));
+        Connections next = connectionsOrEmpty(date.plusDays(1));
+        int currentTrips = delegate.tripsFor(date).size();
+        int previousTrips = tripsOrEmpty(date.minusDays(1)).size();
+        return new MergedConnections(
+                new Day(next, MINUTES_PER_DAY, currentTrips + previousTrips,
+                        c -> next.arrMins(c) + MINUTES_PER_DAY <= LAST_ARR_MINS),
+                new Day(current, 0, 0, c -> true),
+                new Day(previous, -MINUTES_PER_DAY, currentTrips,
+                        c -> previous.depMins(c) - MINUTES_PER_DAY >= FIRST_DEP_MINS));
+    }
+
+    /**
+     * @param offsets the first index of each day
+     * @param size    the total number of elements
+     * @param id      the index
+     * @return the day of the element with the given index
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    private static int dayOf(int[] offsets, int size, int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return id >= offsets[2] ? 2 : id >= offsets[1] ? 1 : 0;
+    }
+
+    /**
+     * @param date the day
+     * @return the trips of the given day, or none if the timetable does not cover it
+     * @throws UncheckedIOException if the files of the day exist but cannot be read
+     */
+    private Trips tripsOrEmpty(LocalDate date) {
+        try {
+            return delegate.tripsFor(date);
+        } catch (UncheckedIOException e) {
+            if (!(e.getCause() instanceof NoSuchFileException)) throw e;
+            return new Trips() {
+                @Override
+                public int routeId(int id) {
+                    throw new IndexOutOfBoundsException();
+                }
+
+                @Override
+                public String destination(int id) {
+                    throw new IndexOutOfBoundsException();
+                }
+
+                @Override
+                public int size() {
+                    return 0;
+                }
+            };
+        }
+    }
+
+    /**
+     * @param date the day
+     * @return the connections of the given day, or none if the timetable does not cover
+     *         it
+     * @throws UncheckedIOException if the files of the day exist but cannot be read
+     */
+    private Connections connectionsOrEmpty(LocalDate date) {
+        try {
+            return delegate.connectionsFor(date);
+        } catch (UncheckedIOException e) {
+            if (!(e.getCause() instanceof NoSuchFileException)) throw e;
+            return new MergedConnections();
+        }
+    }
+
+    /**
+     * The merged data of a day, each merged the first time it is asked for, the compiled
+     * connections being compiled from the merged connections
+     */
+    private final class MergedDay {
+        private final LocalDate date;
+        private Trips trips;
+        private Connections connections;
+        private CompiledConnections compiledConnections;
+
+        private MergedDay(LocalDate date) {
+            this.date = date;
+        }
+
+        synchronized Trips trips() {
+            if (trips == null) {
+                trips = mergeTrips(date);
+            }
+            return trips;
+        }
+
+        synchronized Connections connections() {
+            if (connections == null) {
+                connections = mergeConnections(date);
+            }
+            return connections;
+        }
+
+        synchronized CompiledConnections compiledConnections() {
+            if (compiledConnections == null) {
+                compiledConnections = compiledConnectionsFor(date, connections());
+            }
+            return compiledConnections;
+        }
+    }
+
+    /**
+     * The connections of a day to merge, with the shift of their times and trips
+     *
+     * @param connections the connections of the day
+     * @param shift       the number of minutes added to their times
+     * @param tripOffset  the number added to their trip indices
+     * @param kept        the connections that are kept
+     */
+    private record Day(Connections connections, int shift, int tripOffset, IntPredicate kept) {
+    }
+
+    /**
+     * The connections of several days merged by decreasing departure time, read from
+     * the connections of each day through the stored merge order
+     */
+    private static final class MergedConnections implements Connections {
+        private final Day[] days;
+
+        /**
+         * The day and the index within it of each merged connection
+         */
+        private final byte[] dayOf;
+        private final int[] indexInDay;
+
+        /**
+         * For each day, the merged index of each of its connections, -1 if it is not kept
+         */
+        private final int[][] mergedIds;
+
+        /**
+         * For each day and trip, the position and the merged index of its first kept
+         * connection
+         */
+        private final int[][] firstPositions;
+        private final int[][] firstIds;
+
+        MergedConnections(Day... days) {
+            this.days = days;
+            this.mergedIds = new int[days.length][];
+            this.firstPositions = new int[days.length][];
+            this.firstIds = new int[days.length][];
+            int size = 0;
+            int[] heads = new int[days.length];
+            for (int d = 0; d < days.length; d++) {
+                Connections connections = days[d].connections();
+                mergedIds[d] = new int[connections.size()];
+                int tripCount = 0;
+                for (int c = 0; c < connections.size(); c++) {
+                    if (days[d].kept().test(c)) {
+                        size++;
+                        tripCount = Math.max(tripCount, connections.tripId(c) + 1);
+                    }
+                }
+                firstPositions[d] = new int[tripCount];
+                firstIds[d] = new int[tripCount];
+                Arrays.fill(firstPositions[d], Integer.MAX_VALUE);
+                heads[d] = nextKept(d, 0);
+            }
+
+            this.dayOf = new byte[size];
+            this.indexInDay = new int[size];
+            for (int id = 0; id < size; id++) {
+                // The day whose next kept connection departs last, the first one on ties
+                int day = -1;
+                for (int d = 0; d < days.length; d++) {
+                    if (heads[d] < days[d].connections().size()
+                            && (day == -1 || depMins(d, heads[d]) > depMins(day, heads[day]))) {
+                        day = d;
+                    }
+                }
+                int c = heads[day];
+                dayOf[id] = (byte) day;
+                indexInDay[id] = c;
+                mergedIds[day][c] = id;
+                int tripId = days[day].connections().tripId(c);
+                int tripPos = days[day].connections().tripPos(c);
+                if (tripPos < firstPositions[day][tripId]) {
+                    firstPositions[day][tripId] = tripPos;
+                    firstIds[day][tripId] = id;
+                }
+                heads[day] = nextKept(day, c + 1);
+            }
+        }
+
+        /**
+         * @param day  the day
+         * @param from the first index searched
+         * @return the index of the first kept connection of the day from the given one,
+         *         marking the skipped ones as not kept
+         */
+        private int nextKept(int day, int from) {
+            int c = from;
+            while (c < days[day].connections().size() && !days[day].kept().test(c)) {
+                mergedIds[day][c] = -1;
+                c++;
+            }
+            return c;
+        }
+
+        private int depMins(int day, int c) {
+            return days[day].connections().depMins(c) + days[day].shift();
+        }
+
+        private Connections day(int id) {
+            return days[dayOf[id]].connections();
+        }
+
+        @Override
+        public int depStopId(int id) {
+            return day(id).depStopId(indexInDay[id]);
+        }
+
+        @Override
+        public int depMins(int id) {
+            return depMins(dayOf[id], indexInDay[id]);
+        }
+
+        @Override
+        public int arrStopId(int id) {
+            return day(id).arrStopId(indexInDay[id]);
+        }
+
+        @Override
+        public int arrMins(int id) {
+            return day(id).arrMins(indexInDay[id]) + days[dayOf[id]].shift();
+        }
+
+        @Override
+        public int tripId(int id) {
+            return day(id).tripId(indexInDay[id]) + days[dayOf[id]].tripOffset();
+        }
+
+        @Override
+        public int tripPos(int id) {
+            int day = dayOf[id];
+            Connections connections = days[day].connections();
+            int c = indexInDay[id];
+            return connections.tripPos(c) - firstPositions[day][connections.tripId(c)];
+        }
+
+        @Override
+        public int nextConnectionId(int id) {
+            int day = dayOf[id];
+            Connections connections = days[day].connections();
+            int c = indexInDay[id];
+            int next = connections.nextConnectionId(c);
+            // The trip goes on if its next connection is kept and is not its first one
+            if (connections.tripPos(next) > connections.tripPos(c) && mergedIds[day][next] != -1) {
+                return mergedIds[day][next];
+            }
+            return firstIds[day][connections.tripId(c)];
+        }
+
+        @Override
+        public int size() {
+            return dayOf.length;
+        }
+    }
+}
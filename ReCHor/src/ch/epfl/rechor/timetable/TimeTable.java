@@ -1,5 +1,7 @@
 package ch.epfl.rechor.timetable;
 
+import ch.epfl.rechor.journey.Stop;
+
 import java.time.LocalDate;
 
 /**
@@ -53,6 +55,27 @@ public interface TimeTable {
      */
     Connections connectionsFor(LocalDate date);
 
+    /**
+     *
+     * @param date the day
+     * @return the connections on the active schedule of the given day, compiled into
+     *         arrays indexed by connection
+     */
+    default CompiledConnections compiledConnectionsFor(LocalDate date) {
+        return compiledConnectionsFor(date, connectionsFor(date));
+    }
+
+    /**
+     *
+     * @param date        the day
+     * @param connections the connections of the given day, as returned by
+     *                    {@link #connectionsFor(LocalDate)}
+     * @return the given connections, compiled into arrays indexed by connection
+     */
+    default CompiledConnections compiledConnectionsFor(LocalDate date, Connections connections) {
+        return new CompiledConnections(this, connections);
+    }
+
     /**
      *
      * @param stopId the stop index
@@ -89,4 +112,16 @@ public interface TimeTable {
         return isPlatformId(stopId) ? platforms().name(stopId - stations().size()) : null;
     }
 
+    /**
+     *
+     * @param stopId the stop index
+     * @return the stop with the given index, with the name and position of its station
+     *         and the name of its platform, if any
+     */
+    default Stop stop(int stopId) {
+        int stationId = stationId(stopId);
+        Stations stations = stations();
+        return new Stop(stations.name(stationId), platformName(stopId),
+                stations.longitude(stationId), stations.latitude(stationId));
+    }
 }
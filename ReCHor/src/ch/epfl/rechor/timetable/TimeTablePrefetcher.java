@@ -0,0 +1,88 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the data of the days following a given one in the background, on virtual
+ * threads, so that the first query for one of them does not pay for opening its files
+ * and reading their pages for the first time.
+ * <p>
+ * The data is loaded through the given timetable, which should cache at least the given
+ * day and the prefetched ones, like a {@link CachedTimeTable} of sufficient capacity;
+ * otherwise the prefetched data is simply lost. Every trip and connection of a day is
+ * read once, which brings the pages of the mapped files into memory, and its compiled
+ * connections are built.
+ */
+public final class TimeTablePrefetcher implements AutoCloseable {
+    private final TimeTable timeTable;
+    private final int dayCount;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Constructs a prefetcher of the given timetable
+     *
+     * @param timeTable the timetable, which should cache the prefetched days
+     * @param dayCount  the number of days prefetched after the given one
+     * @throws IllegalArgumentException if the number of days is negative
+     */
+    public TimeTablePrefetcher(TimeTable timeTable, int dayCount) {
+        Preconditions.checkArgument(dayCount >= 0);
+        this.timeTable = timeTable;
+        this.dayCount = dayCount;
+    }
+
+    /**
+     * Starts loading the given day and the days following it in the background, each on
+     * its own virtual thread. Days the timetable does not cover, whose files do not
+     * exist, are ignored.
+     *
+     * @param date the first day loaded
+     * @return a future completed once all the days have been loaded, exceptionally if
+     *         one of them could not be read
+     */
+    public CompletableFuture<Void> prefetch(LocalDate date) {
+        CompletableFuture<?>[] days = new CompletableFuture<?>[dayCount + 1];
+        for (int i = 0; i <= dayCount; i++) {
+            LocalDate day = date.plusDays(i);
+            days[i] = CompletableFuture.runAsync(() -> load(day), executor);
+        }
+        return CompletableFuture.allOf(days);
+    }
+
+    /**
+     * Loads the trips and connections of the given day, reading each of them once
+     *
+     * @param date the day
+     * @throws UncheckedIOException if the files of the day exist but cannot be read
+     */
+    private void load(LocalDate date) {
+        try {
+            Trips trips = timeTable.tripsFor(date);
+            for (int i = 0; i < trips.size(); i++) {
+                trips.routeId(i);
+            }
+            CompiledConnections connections = timeTable.compiledConnectionsFor(date);
+            for (int i = 0; i < connections.size(); i++) {
+                connections.nextConnectionId(i);
+            }
+        } catch (UncheckedIOException e) {
+            // Only a day the timetable does not cover is skipped
+            if (!(e.getCause() instanceof NoSuchFileException)) throw e;
+        }
+    }
+
+    /**
+     * Stops the loading of the days whose loading has not started yet
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,5 +1,11 @@
 package ch.epfl.rechor.timetable;
 
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
 /**
  * Represents the changes
  *
@@ -23,6 +29,14 @@ public interface Transfers extends Indexed{
      */
     int minutes(int id);
 
+    /**
+     *
+     * @param id the index change
+     * @return the index of the arrival station
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    int arrStationId(int id);
+
     /**
      *
      * @param stationId the index of the arrival station
@@ -39,4 +53,49 @@ public interface Transfers extends Indexed{
      * @throws IndexOutOfBoundsException if the index is invalid
      */
     int minutesBetween(int depStationId, int arrStationId);
+
+    /**
+     * The default implementation counts the changes departing from each station, in
+     * time linear in the number of changes; implementations used by the router index
+     * them once instead.
+     *
+     * @param stationId the index of the departure station
+     * @return the packed interval of the positions, in the order of their departure
+     *         station, of the changes departing from the given station
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    default int departingFrom(int stationId) {
+        if (stationId < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int start = 0;
+        int count = 0;
+        for (int i = 0; i < size(); i++) {
+            int depStationId = depStationId(i);
+            if (depStationId < stationId) {
+                start++;
+            } else if (depStationId == stationId) {
+                count++;
+            }
+        }
+        return PackedRange.pack(start, start + count);
+    }
+
+    /**
+     * The default implementation sorts the changes by departure station, keeping their
+     * order, on each call; implementations used by the router index them once instead.
+     *
+     * @param position the position of a change in the order of their departure station
+     * @return the index of the change at the given position
+     * @throws IndexOutOfBoundsException if the position is invalid
+     */
+    default int departingTransferId(int position) {
+        Preconditions.checkIndex(size(), position);
+        return IntStream.range(0, size())
+                .boxed()
+                .sorted(Comparator.comparingInt(this::depStationId))
+                .skip(position)
+                .findFirst()
+                .orElseThrow();
+    }
 }
@@ -32,6 +32,17 @@ public final class BufferedConnections implements Connections {
     private final StructuredBuffer structuredBuffer;
     private final StructuredBuffer succStructuredBuffer;
 
+    /**
+     * Offsets of the fields within a connection and within a successor, read with the
+     * unchecked accessors once the connection index has been checked
+     */
+    private final int depStopOffset;
+    private final int depMinutesOffset;
+    private final int arrStopOffset;
+    private final int arrMinutesOffset;
+    private final int tripPosOffset;
+    private final int nextConnectionOffset;
+
     /**
      * Constructs a BufferedConnections object with access to the flattened
      * connection and successor data.
@@ -52,6 +63,13 @@ public final class BufferedConnections implements Connections {
         Structure succStructure = new Structure(
             Structure.field(NEXT_CONNECTION_ID, Structure.FieldType.S32));
         this.succStructuredBuffer = new StructuredBuffer(succStructure, succBuffer);
+
+        this.depStopOffset = structuredBuffer.fieldOffset(DEP_STOP_ID);
+        this.depMinutesOffset = structuredBuffer.fieldOffset(DEP_MINUTES);
+        this.arrStopOffset = structuredBuffer.fieldOffset(ARR_STOP_ID);
+        this.arrMinutesOffset = structuredBuffer.fieldOffset(ARR_MINUTES);
+        this.tripPosOffset = structuredBuffer.fieldOffset(TRIP_POS_ID);
+        this.nextConnectionOffset = succStructuredBuffer.fieldOffset(NEXT_CONNECTION_ID);
     }
 
     /**
@@ -65,7 +83,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int depStopId(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getU16(DEP_STOP_ID, id);
+        return structuredBuffer.getU16At(depStopOffset, id);
     }
 
     /**
@@ -79,7 +97,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int depMins(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getU16(DEP_MINUTES, id);
+        return structuredBuffer.getU16At(depMinutesOffset, id);
     }
 
     /**
@@ -93,7 +111,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int arrStopId(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getU16(ARR_STOP_ID, id);
+        return structuredBuffer.getU16At(arrStopOffset, id);
     }
 
     /**
@@ -107,7 +125,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int arrMins(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getU16(ARR_MINUTES, id);
+        return structuredBuffer.getU16At(arrMinutesOffset, id);
     }
 
     /**
@@ -121,7 +139,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int tripId(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getS32(TRIP_POS_ID, id) >>> 8;
+        return structuredBuffer.getS32At(tripPosOffset, id) >>> 8;
 
     }
 
@@ -136,7 +154,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int tripPos(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getS32(TRIP_POS_ID, id) & 0xFF;
+        return structuredBuffer.getS32At(tripPosOffset, id) & 0xFF;
     }
 
     /**
@@ -152,7 +170,7 @@ public final class BufferedConnections implements Connections {
     @Override
     public int nextConnectionId(int id) {
         Preconditions.checkIndex(size(), id);
-        return succStructuredBuffer.getS32(NEXT_CONNECTION_ID, id);
+        return succStructuredBuffer.getS32At(nextConnectionOffset, id);
     }
 
     /**
@@ -0,0 +1,111 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The string table of a timetable, read from its lines encoded in ISO-8859-1 and stored
+ * in a buffer, without decoding them all in advance.
+ * <p>
+ * Only the offset of each line is computed when the table is built. A string is decoded
+ * when it is first asked for and kept in a small cache, indexed by the index of the
+ * string, so that the names asked for repeatedly are not decoded every time.
+ */
+public final class BufferedStringTable extends AbstractList<String> implements RandomAccess {
+
+    /**
+     * The number of strings kept in the cache, a power of two
+     */
+    private static final int CACHE_SIZE = 1 << 10;
+
+    /**
+     * A decoded string with its index
+     */
+    private record Entry(int id, String value) {
+    }
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The offset of the first byte of each line, followed by the offset of its end,
+     * excluding the line terminator
+     */
+    private final int[] starts;
+    private final int[] ends;
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /**
+     * Constructor of BufferedStringTable
+     *
+     * @param buffer the lines of the table, terminated by a line feed, a carriage return
+     *               or both, the last one possibly being unterminated
+     */
+    public BufferedStringTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+        int start = 0;
+        int i = 0;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                starts[count] = start;
+                ends[count] = i;
+                count++;
+                i += b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n' ? 2 : 1;
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        if (start < limit) {
+            starts = Arrays.copyOf(starts, count + 1);
+            ends = Arrays.copyOf(ends, count + 1);
+            starts[count] = start;
+            ends[count] = limit;
+            count++;
+        }
+        this.starts = Arrays.copyOf(starts, count);
+        this.ends = Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * Returns the string with the given index, decoding it if it is not in the cache
+     *
+     * @param id the index of the string
+     * @return the string with the given index
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    @Override
+    public String get(int id) {
+        Preconditions.checkIndex(size(), id);
+        int slot = id & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        if (entry == null || entry.id() != id) {
+            byte[] bytes = new byte[ends[id] - starts[id]];
+            buffer.get(starts[id], bytes);
+            entry = new Entry(id, new String(bytes, StandardCharsets.ISO_8859_1));
+            cache[slot] = entry;
+        }
+        return entry.value();
+    }
+
+    /**
+     * @return the number of strings in the table
+     */
+    @Override
+    public int size() {
+        return starts.length;
+    }
+}
@@ -29,6 +29,30 @@ public class BufferedTransfers implements Transfers {
     private final StructuredBuffer structuredBuffer;
     private final int[] arrivingAtTable;
 
+    /**
+     * The packed interval of the positions of the changes departing from each station,
+     * and the index of the change at each position
+     */
+    private final int[] departingFromTable;
+    private final int[] departingTransferIds;
+
+    /**
+     * Open-addressing hash table of the changes, indexed by their departure and arrival
+     * stations: the key of each slot and the index of its change plus one, 0 for an
+     * empty slot
+     */
+    private final int[] pairKeys;
+    private final int[] pairTransferIds;
+    private final int pairShift;
+
+    /**
+     * Offsets of the fields within a transfer, read with the unchecked accessors once
+     * the transfer index has been checked
+     */
+    private final int depStationOffset;
+    private final int arrStationOffset;
+    private final int minutesOffset;
+
     /**
      * Constructs a BufferedTransfers object with access to the flattened transfer
      * data.
@@ -36,24 +60,94 @@ public class BufferedTransfers implements Transfers {
      * @param buffer the ByteBuffer containing the transfer data
      */
     public BufferedTransfers(ByteBuffer buffer) {
+        this(buffer, null, null, null);
+    }
+
+    /**
+     * Constructs a BufferedTransfers object with access to the flattened transfer
+     * data, indexed by the given tables, as read from a {@link CompiledTransfersFile}
+     *
+     * @param buffer               the ByteBuffer containing the transfer data
+     * @param arrivingAtTable      the packed interval of the indices of the changes
+     *                             arriving at each station, or null to compute it
+     * @param departingFromTable   the packed interval of the positions of the changes
+     *                             departing from each station, or null to compute it
+     * @param departingTransferIds the index of the change at each position, or null to
+     *                             compute it
+     */
+    BufferedTransfers(ByteBuffer buffer, int[] arrivingAtTable, int[] departingFromTable,
+                      int[] departingTransferIds) {
         Structure transferStructure = new Structure(
             Structure.field(DEP_STATION_ID, Structure.FieldType.U16),
             Structure.field(ARR_STATION_ID, Structure.FieldType.U16),
             Structure.field(TRANSFER_MINUTES, Structure.FieldType.U8)
         );
         this.structuredBuffer = new StructuredBuffer(transferStructure, buffer);
+        this.depStationOffset = structuredBuffer.fieldOffset(DEP_STATION_ID);
+        this.arrStationOffset = structuredBuffer.fieldOffset(ARR_STATION_ID);
+        this.minutesOffset = structuredBuffer.fieldOffset(TRANSFER_MINUTES);
 
         int totalChanges = structuredBuffer.size();
+        this.arrivingAtTable = arrivingAtTable != null ? arrivingAtTable : arrivingAtTable(totalChanges);
+
+        if (departingFromTable != null && departingTransferIds != null) {
+            this.departingFromTable = departingFromTable;
+            this.departingTransferIds = departingTransferIds;
+        } else {
+            int maxDepStationId = -1;
+            for (int i = 0; i < totalChanges; i++) {
+                maxDepStationId = Math.max(maxDepStationId, structuredBuffer.getU16At(depStationOffset, i));
+            }
+            // Counting sort of the changes by departure station, keeping their order
+            int[] starts = new int[maxDepStationId + 2];
+            for (int i = 0; i < totalChanges; i++) {
+                starts[structuredBuffer.getU16At(depStationOffset, i) + 1] += 1;
+            }
+            for (int s = 0; s <= maxDepStationId; s++) {
+                starts[s + 1] += starts[s];
+            }
+            this.departingFromTable = new int[maxDepStationId + 1];
+            for (int s = 0; s <= maxDepStationId; s++) {
+                this.departingFromTable[s] = PackedRange.pack(starts[s], starts[s + 1]);
+            }
+            this.departingTransferIds = new int[totalChanges];
+            for (int i = 0; i < totalChanges; i++) {
+                this.departingTransferIds[starts[structuredBuffer.getU16At(depStationOffset, i)]++] = i;
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, 2 * totalChanges - 1)) << 1;
+        this.pairShift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        this.pairKeys = new int[capacity];
+        this.pairTransferIds = new int[capacity];
+        for (int i = 0; i < totalChanges; i++) {
+            int key = pairKey(structuredBuffer.getU16At(depStationOffset, i),
+                    structuredBuffer.getU16At(arrStationOffset, i));
+            int slot = slot(key);
+            while (pairTransferIds[slot] != 0 && pairKeys[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (pairTransferIds[slot] == 0) {
+                pairKeys[slot] = key;
+                pairTransferIds[slot] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * @param totalChanges the number of changes, sorted by arrival station
+     * @return the packed interval of the indices of the changes arriving at each station
+     */
+    private int[] arrivingAtTable(int totalChanges) {
         if (totalChanges == 0) {
-            this.arrivingAtTable = new int[0];
-            return;
+            return new int[0];
         }
         int maxStationId = -1;
         for (int i = 0; i < totalChanges; i++) {
             maxStationId = Math.max(maxStationId, structuredBuffer.getU16(ARR_STATION_ID, i));
         }
 
-        this.arrivingAtTable = new int[maxStationId + 1];
+        int[] arrivingAtTable = new int[maxStationId + 1];
         int firstIndex = 0;
         int currentArrStation = structuredBuffer.getU16(ARR_STATION_ID, 0);
 
@@ -67,6 +161,24 @@ public class BufferedTransfers implements Transfers {
             }
         }
         arrivingAtTable[currentArrStation] = PackedRange.pack(firstIndex, totalChanges);
+        return arrivingAtTable;
+    }
+
+    /**
+     * @param depStationId departure station
+     * @param arrStationId arrival station
+     * @return the key of the pair of stations in the hash table
+     */
+    private static int pairKey(int depStationId, int arrStationId) {
+        return (depStationId << 16) | arrStationId;
+    }
+
+    /**
+     * @param key the key of a pair of stations
+     * @return the first slot of the hash table probed for the given key
+     */
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> pairShift;
     }
 
     /**
@@ -78,7 +190,7 @@ public class BufferedTransfers implements Transfers {
     @Override
     public int depStationId(int id) {
         Preconditions.checkIndex(size(), id);
-        return structuredBuffer.getU16(DEP_STATION_ID, id);
+        return structuredBuffer.getU16At(depStationOffset, id);
     }
 
     /**
@@ -91,7 +203,7 @@ public class BufferedTransfers implements Transfers {
     public int minutes(int id) {
         Preconditions.checkIndex(size(), id);
 
-        return structuredBuffer.getU8(TRANSFER_MINUTES, id);
+        return structuredBuffer.getU8At(minutesOffset, id);
     }
 
     /**
@@ -107,32 +219,68 @@ public class BufferedTransfers implements Transfers {
     }
 
     /**
+     *
+     * @param id the index change
+     * @return the index of the arrival station
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    @Override
+    public int arrStationId(int id) {
+        Preconditions.checkIndex(size(), id);
+        return structuredBuffer.getU16At(arrStationOffset, id);
+    }
+
+    /**
+     *
+     * @param stationId the index of the departure station
+     * @return the packed interval of the positions, in the order of their departure
+     *         station, of the changes departing from the given station
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    @Override
+    public int departingFrom(int stationId) {
+        Preconditions.checkIndex(departingFromTable.length, stationId);
+        return departingFromTable[stationId];
+    }
+
+    /**
+     *
+     * @param position the position of a change in the order of their departure station
+     * @return the index of the change at the given position
+     * @throws IndexOutOfBoundsException if the position is invalid
+     */
+    @Override
+    public int departingTransferId(int position) {
+        Preconditions.checkIndex(departingTransferIds.length, position);
+        return departingTransferIds[position];
+    }
+
+    /**
+     * Looks the change up in a hash table of the pairs of stations, in constant time
      *
      * @param depStationId departure station
      * @param arrStationId arrival station
      * @return the duration in minutes of the change between the two stations
      * @throws IndexOutOfBoundsException if the index is invalid
+     * @throws NoSuchElementException if there is no change between the two stations
      */
     @Override
     public int minutesBetween(int depStationId, int arrStationId) {
         if (depStationId < 0 || arrStationId < 0) {
             throw new IndexOutOfBoundsException();
         }
-
-        int packedRange = arrivingAt(arrStationId);
-        if (packedRange == 0) {
+        Preconditions.checkIndex(arrivingAtTable.length, arrStationId);
+        if (depStationId > 0xFFFF) {
             throw new NoSuchElementException();
         }
 
-        int startIndex = PackedRange.startInclusive(packedRange);
-        int endIndex = PackedRange.endExclusive(packedRange);
-
-        for (int i = startIndex; i < endIndex; i++) {
-            if (structuredBuffer.getU16(DEP_STATION_ID, i) == depStationId) {
-                return structuredBuffer.getU8(TRANSFER_MINUTES, i);
+        int key = pairKey(depStationId, arrStationId);
+        int mask = pairKeys.length - 1;
+        for (int slot = slot(key); pairTransferIds[slot] != 0; slot = (slot + 1) & mask) {
+            if (pairKeys[slot] == key) {
+                return structuredBuffer.getU8At(minutesOffset, pairTransferIds[slot] - 1);
             }
         }
-
         throw new NoSuchElementException();
     }
 
@@ -0,0 +1,108 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.Connections;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of the Connections interface for accessing flattened timetable data
+ * stored by column.
+ * <p>
+ * The buffer contains the same fields as the one of {@link BufferedConnections}, with
+ * the same types, but each field of all the connections is stored contiguously: first
+ * the departure stops (U16), then the departure times (U16), the arrival stops (U16),
+ * the arrival times (U16), and finally the trips and positions (S32), so that reading
+ * one field of many connections reads only the bytes of that field.
+ */
+public final class ColumnarConnections implements Connections {
+
+    /**
+     * The number of bytes of all the fields of a connection
+     */
+    private static final int CONNECTION_BYTES = 4 * Short.BYTES + Integer.BYTES;
+
+    /**
+     * The columns of the fields of the connections
+     */
+    private final ByteBuffer depStops;
+    private final ByteBuffer depMinutes;
+    private final ByteBuffer arrStops;
+    private final ByteBuffer arrMinutes;
+    private final ByteBuffer tripPositions;
+
+    /**
+     * The successor of each connection
+     */
+    private final ByteBuffer successors;
+    private final int size;
+
+    /**
+     * Constructs a ColumnarConnections object with access to the flattened connection
+     * and successor data.
+     *
+     * @param buffer     the ByteBuffer containing the columns of the connection data
+     * @param succBuffer the ByteBuffer containing the next connection data
+     * @throws IllegalArgumentException if the sizes of the buffers do not match a whole
+     *                                  number of connections
+     */
+    public ColumnarConnections(ByteBuffer buffer, ByteBuffer succBuffer) {
+        Preconditions.checkArgument(buffer.capacity() % CONNECTION_BYTES == 0);
+        this.size = buffer.capacity() / CONNECTION_BYTES;
+        Preconditions.checkArgument(succBuffer.capacity() == size * Integer.BYTES);
+        int columnBytes = size * Short.BYTES;
+        this.depStops = buffer.slice(0, columnBytes);
+        this.depMinutes = buffer.slice(columnBytes, columnBytes);
+        this.arrStops = buffer.slice(2 * columnBytes, columnBytes);
+        this.arrMinutes = buffer.slice(3 * columnBytes, columnBytes);
+        this.tripPositions = buffer.slice(4 * columnBytes, size * Integer.BYTES);
+        this.successors = succBuffer;
+    }
+
+    @Override
+    public int depStopId(int id) {
+        Preconditions.checkIndex(size, id);
+        return Short.toUnsignedInt(depStops.getShort(id * Short.BYTES));
+    }
+
+    @Override
+    public int depMins(int id) {
+        Preconditions.checkIndex(size, id);
+        return Short.toUnsignedInt(depMinutes.getShort(id * Short.BYTES));
+    }
+
+    @Override
+    public int arrStopId(int id) {
+        Preconditions.checkIndex(size, id);
+        return Short.toUnsignedInt(arrStops.getShort(id * Short.BYTES));
+    }
+
+    @Override
+    public int arrMins(int id) {
+        Preconditions.checkIndex(size, id);
+        return Short.toUnsignedInt(arrMinutes.getShort(id * Short.BYTES));
+    }
+
+    @Override
+    public int tripId(int id) {
+        Preconditions.checkIndex(size, id);
+        return tripPositions.getInt(id * Integer.BYTES) >>> 8;
+    }
+
+    @Override
+    public int tripPos(int id) {
+        Preconditions.checkIndex(size, id);
+        return tripPositions.getInt(id * Integer.BYTES) & 0xFF;
+    }
+
+    @Override
+    public int nextConnectionId(int id) {
+        Preconditions.checkIndex(size, id);
+        return successors.getInt(id * Integer.BYTES);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,110 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.timetable.CompiledConnections;
+import ch.epfl.rechor.timetable.Connections;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The format of the files containing the compiled connections of a day, written by the
+ * {@link TimeTableCompiler}.
+ * <p>
+ * A file starts with a {@link CompiledFileHeader}, followed by two S32: the number of
+ * connections and the number of trips. They are followed by the station of the departure
+ * stop of each connection (U16), the station of the arrival stop of each connection
+ * (U16), the index of the first connection of each trip in the connections sorted by
+ * trip and position followed by the number of connections (S32), and the indices of the
+ * connections sorted by trip and position (S32).
+ */
+final class CompiledConnectionsFile {
+    private CompiledConnectionsFile() {
+    }
+
+    /**
+     * The magic number and the version of the format
+     */
+    static final int MAGIC = 0x52434843;
+    static final int VERSION = 3;
+
+    private static final int HEADER_BYTES = CompiledFileHeader.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * @param connections the compiled connections of a day
+     * @return the content of the file of the given connections
+     */
+    static ByteBuffer write(CompiledConnections connections) {
+        int size = connections.size();
+        int tripCount = 0;
+        for (int i = 0; i < size; i++) {
+            tripCount = Math.max(tripCount, connections.tripId(i) + 1);
+        }
+        int[] tripStarts = new int[tripCount + 1];
+        for (int i = 0; i < size; i++) {
+            tripStarts[connections.tripId(i) + 1] += 1;
+        }
+        for (int t = 0; t < tripCount; t++) {
+            tripStarts[t + 1] += tripStarts[t];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                HEADER_BYTES + 2 * size * Short.BYTES + (tripCount + 1 + size) * Integer.BYTES);
+        buffer.position(HEADER_BYTES);
+        for (int i = 0; i < size; i++) {
+            buffer.putShort((short) connections.depStationId(i));
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putShort((short) connections.arrStationId(i));
+        }
+        for (int tripStart : tripStarts) {
+            buffer.putInt(tripStart);
+        }
+        int tripConnectionsStart = buffer.position();
+        for (int i = 0; i < size; i++) {
+            int position = tripStarts[connections.tripId(i)] + connections.tripPos(i);
+            buffer.putInt(tripConnectionsStart + position * Integer.BYTES, i);
+        }
+        buffer.putInt(CompiledFileHeader.BYTES, size)
+                .putInt(CompiledFileHeader.BYTES + Integer.BYTES, tripCount);
+        return CompiledFileHeader.write(buffer, MAGIC, VERSION);
+    }
+
+    /**
+     * @param buffer      the content of a file of compiled connections
+     * @param connections the connections of the day
+     * @return the compiled connections read from the file, or null if the file has
+     *         another format or version, or does not match the connections
+     */
+    static CompiledConnections read(ByteBuffer buffer, Connections connections) {
+        ByteBuffer content = CompiledFileHeader.content(buffer, MAGIC, VERSION);
+        if (content == null || content.capacity() < 2 * Integer.BYTES) {
+            return null;
+        }
+        int size = content.getInt(0);
+        int tripCount = content.getInt(Integer.BYTES);
+        long expectedBytes = HEADER_BYTES + 2L * size * Short.BYTES
+                + ((long) tripCount + 1 + size) * Integer.BYTES;
+        if (size != connections.size() || tripCount < 0 || buffer.capacity() != expectedBytes) {
+            return null;
+        }
+
+        int offset = HEADER_BYTES;
+        int[] depStationIds = new int[size];
+        int[] arrStationIds = new int[size];
+        for (int i = 0; i < size; i++, offset += Short.BYTES) {
+            depStationIds[i] = Short.toUnsignedInt(buffer.getShort(offset));
+        }
+        for (int i = 0; i < size; i++, offset += Short.BYTES) {
+            arrStationIds[i] = Short.toUnsignedInt(buffer.getShort(offset));
+        }
+        int[] tripStarts = new int[tripCount + 1];
+        for (int t = 0; t <= tripCount; t++, offset += Integer.BYTES) {
+            tripStarts[t] = buffer.getInt(offset);
+        }
+        int[] tripConnectionIds = new int[size];
+        for (int i = 0; i < size; i++, offset += Integer.BYTES) {
+            tripConnectionIds[i] = buffer.getInt(offset);
+        }
+        return new CompiledConnections(connections, depStationIds, arrStationIds, tripStarts,
+                tripConnectionIds);
+    }
+}
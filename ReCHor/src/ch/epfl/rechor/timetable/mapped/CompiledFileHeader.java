@@ -0,0 +1,52 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The header of the files written by the {@link TimeTableCompiler}.
+ * <p>
+ * A header is made of two S32: a magic number identifying the kind of file, and the
+ * version of its format. A file whose header does not match is ignored. The files are
+ * tied to the files of the timetable they were compiled from by the
+ * {@link CompiledManifest} of their day, which is checked before they are read.
+ */
+final class CompiledFileHeader {
+    private CompiledFileHeader() {
+    }
+
+    /**
+     * The number of bytes of a header
+     */
+    static final int BYTES = 2 * Integer.BYTES;
+
+    /**
+     * Fills the header of the given file content
+     *
+     * @param buffer  the content of a file, whose first {@link #BYTES} bytes are left for
+     *                the header
+     * @param magic   the magic number of the kind of file
+     * @param version the version of its format
+     * @return the buffer, cleared
+     */
+    static ByteBuffer write(ByteBuffer buffer, int magic, int version) {
+        buffer.putInt(0, magic)
+                .putInt(Integer.BYTES, version);
+        return buffer.clear();
+    }
+
+    /**
+     * @param buffer  the content of a file
+     * @param magic   the expected magic number
+     * @param version the expected version
+     * @return the content of the file following its header, or null if the file is of
+     *         another kind or version
+     */
+    static ByteBuffer content(ByteBuffer buffer, int magic, int version) {
+        if (buffer.capacity() < BYTES
+                || buffer.getInt(0) != magic
+                || buffer.getInt(Integer.BYTES) != version) {
+            return null;
+        }
+        return buffer.slice(BYTES, buffer.capacity() - BYTES);
+    }
+}
@@ -0,0 +1,122 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The manifest written by the {@link TimeTableCompiler} in the timetable directory and
+ * in the directory of each day, which ties the compiled files of the directory to the
+ * files of the timetable they were compiled from.
+ * <p>
+ * A manifest records the size and the last modification time of each of the files the
+ * compiled files are computed from, and of each compiled file. The compiled files are
+ * only read while all these files still have the recorded sizes and times, which is
+ * checked from their attributes alone, without reading them. Since the manifest is
+ * written once the compiled files are complete, a compiled file left over from a
+ * previous compilation, or replaced by an interrupted one, is ignored as well.
+ * <p>
+ * A manifest is made of two S32, a magic number and the version of its format, followed
+ * by the size in bytes and the last modification time in nanoseconds since the epoch
+ * (two S64) of each of its files, in the order of {@link #timeTableFiles} or
+ * {@link #dayFiles}.
+ */
+final class CompiledManifest {
+    private CompiledManifest() {
+    }
+
+    /**
+     * The magic number and the version of the format
+     */
+    static final int MAGIC = 0x52434D46;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int FILE_BYTES = 2 * Long.BYTES;
+
+    /**
+     * @param directory the path to the folder containing the time data files
+     * @return the files the compiled files of the timetable directory are computed from,
+     *         followed by the compiled files
+     */
+    static List<Path> timeTableFiles(Path directory) {
+        return List.of(
+                directory.resolve("transfers.bin"),
+                directory.resolve(TimeTableCompiler.TRANSFERS_FILE));
+    }
+
+    /**
+     * @param directory the path to the folder containing the time data files
+     * @param date      the day
+     * @return the files the compiled files of the given day are computed from, followed
+     *         by the compiled files
+     */
+    static List<Path> dayFiles(Path directory, LocalDate date) {
+        Path dayPath = directory.resolve(date.toString());
+        return List.of(
+                directory.resolve("stations.bin"),
+                directory.resolve("platforms.bin"),
+                dayPath.resolve("trips.bin"),
+                dayPath.resolve("connections.bin"),
+                dayPath.resolve("connections-succ.bin"),
+                dayPath.resolve(TimeTableCompiler.COLUMNS_FILE),
+                dayPath.resolve(TimeTableCompiler.COMPILED_FILE));
+    }
+
+    /**
+     * @param files the files recorded by the manifest
+     * @return the content of the manifest recording the given files as they are now
+     * @throws IOException on input/output error, in particular if one of the files does
+     *                     not exist
+     */
+    static ByteBuffer write(List<Path> files) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + files.size() * FILE_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            buffer.putLong(attributes.size())
+                    .putLong(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @param manifestPath the path of the manifest
+     * @param files        the files recorded by the manifest
+     * @return true if and only if the manifest exists, and all the given files still have
+     *         the sizes and modification times it records
+     * @throws IOException on input/output error
+     */
+    static boolean isUpToDate(Path manifestPath, List<Path> files) throws IOException {
+        ByteBuffer manifest;
+        try {
+            manifest = ByteBuffer.wrap(Files.readAllBytes(manifestPath));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (manifest.capacity() != HEADER_BYTES + files.size() * FILE_BYTES
+                || manifest.getInt() != MAGIC
+                || manifest.getInt() != VERSION) {
+            return false;
+        }
+        for (Path file : files) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            if (manifest.getLong() != attributes.size()
+                    || manifest.getLong() != attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The format of the file containing the changes of a timetable indexed in both
+ * directions, written by the {@link TimeTableCompiler}.
+ * <p>
+ * A file starts with a {@link CompiledFileHeader}, followed by three S32: the number of
+ * changes, the number of stations the changes arrive at, and the number of stations they
+ * depart from. They are followed by the packed interval of the changes arriving at each
+ * station (S32), the packed interval of the positions of the changes departing from each
+ * station (S32), and the index of the change at each of these positions (S32), as given
+ * by {@link Transfers#arrivingAt}, {@link Transfers#departingFrom} and
+ * {@link Transfers#departingTransferId}.
+ */
+final class CompiledTransfersFile {
+    private CompiledTransfersFile() {
+    }
+
+    /**
+     * The magic number and the version of the format
+     */
+    static final int MAGIC = 0x52435446;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = CompiledFileHeader.BYTES + 3 * Integer.BYTES;
+
+    /**
+     * @param transfers the changes of a timetable
+     * @return the content of the file of the given changes
+     */
+    static ByteBuffer write(Transfers transfers) {
+        int size = transfers.size();
+        int arrStationCount = 0;
+        int depStationCount = 0;
+        for (int i = 0; i < size; i++) {
+            arrStationCount = Math.max(arrStationCount, transfers.arrStationId(i) + 1);
+            depStationCount = Math.max(depStationCount, transfers.depStationId(i) + 1);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                HEADER_BYTES + (arrStationCount + depStationCount + size) * Integer.BYTES);
+        buffer.position(CompiledFileHeader.BYTES);
+        buffer.putInt(size).putInt(arrStationCount).putInt(depStationCount);
+        for (int s = 0; s < arrStationCount; s++) {
+            buffer.putInt(transfers.arrivingAt(s));
+        }
+        for (int s = 0; s < depStationCount; s++) {
+            buffer.putInt(transfers.departingFrom(s));
+        }
+        for (int p = 0; p < size; p++) {
+            buffer.putInt(transfers.departingTransferId(p));
+        }
+        return CompiledFileHeader.write(buffer, MAGIC, VERSION);
+    }
+
+    /**
+     * @param buffer          the content of a file of compiled changes
+     * @param transfersBuffer the content of the file of the changes of the timetable
+     * @return the changes of the timetable, indexed as read from the file, or null if the
+     *         file has another format or version, or does not match the changes
+     */
+    static BufferedTransfers read(ByteBuffer buffer, ByteBuffer transfersBuffer) {
+        ByteBuffer content = CompiledFileHeader.content(buffer, MAGIC, VERSION);
+        if (content == null || content.capacity() < 3 * Integer.BYTES) {
+            return null;
+        }
+        int size = content.getInt(0);
+        int arrStationCount = content.getInt(Integer.BYTES);
+        int depStationCount = content.getInt(2 * Integer.BYTES);
+        long expectedBytes = HEADER_BYTES
+                + ((long) arrStationCount + depStationCount + size) * Integer.BYTES;
+        if (size < 0 || arrStationCount < 0 || depStationCount < 0 || buffer.capacity() != expectedBytes) {
+            return null;
+        }
+
+        int offset = HEADER_BYTES;
+        int[] arrivingAtTable = new int[arrStationCount];
+        for (int s = 0; s < arrStationCount; s++, offset += Integer.BYTES) {
+            arrivingAtTable[s] = buffer.getInt(offset);
+        }
+        int[] departingFromTable = new int[depStationCount];
+        for (int s = 0; s < depStationCount; s++, offset += Integer.BYTES) {
+            departingFromTable[s] = buffer.getInt(offset);
+        }
+        int[] departingTransferIds = new int[size];
+        for (int p = 0; p < size; p++, offset += Integer.BYTES) {
+            departingTransferIds[p] = buffer.getInt(offset);
+        }
+        BufferedTransfers transfers = new BufferedTransfers(transfersBuffer, arrivingAtTable,
+                departingFromTable, departingTransferIds);
+        return transfers.size() == size ? transfers : null;
+    }
+}
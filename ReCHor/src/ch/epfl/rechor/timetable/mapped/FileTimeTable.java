@@ -7,8 +7,6 @@ import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
@@ -49,25 +47,47 @@ public record FileTimeTable(Path directory, List<String> stringTable, Stations s
         Path routesPath = directory.resolve("routes.bin");
         Path transfersPath = directory.resolve("transfers.bin");
 
-        List<String> stringTable = List.copyOf(Files.readAllLines(stringsPath, StandardCharsets.ISO_8859_1));
+        List<String> stringTable = new BufferedStringTable(map(stringsPath));
         BufferedStations bufferedStations = new BufferedStations(stringTable, map(stationsPath));
         BufferedStationAliases bufferedStationAliases = new BufferedStationAliases(stringTable,
                 map(stationAliasesPath));
         BufferedPlatforms bufferedPlatforms = new BufferedPlatforms(stringTable, map(platformsPath));
         BufferedRoutes bufferedRoutes = new BufferedRoutes(stringTable, map(routesPath));
-        BufferedTransfers bufferedTransfers = new BufferedTransfers(map(transfersPath));
+        BufferedTransfers bufferedTransfers = transfers(directory, map(transfersPath));
 
         return new FileTimeTable(directory, stringTable, bufferedStations,
                                  bufferedStationAliases, bufferedPlatforms,
                                  bufferedRoutes, bufferedTransfers);
     }
 
+    /**
+     * @param directory       the path to the folder containing the time data files
+     * @param transfersBuffer the content of the file of the changes
+     * @return the changes, indexed as read from the file written by the
+     *         {@link TimeTableCompiler} if the timetable has a valid one, compiled from its
+     *         current changes
+     * @throws IOException on input/output error
+     */
+    private static BufferedTransfers transfers(Path directory, ByteBuffer transfersBuffer) throws IOException {
+        if (CompiledManifest.isUpToDate(directory.resolve(TimeTableCompiler.MANIFEST_FILE),
+                CompiledManifest.timeTableFiles(directory))) {
+            BufferedTransfers transfers = CompiledTransfersFile.read(
+                    map(directory.resolve(TimeTableCompiler.TRANSFERS_FILE)), transfersBuffer);
+            if (transfers != null) return transfers;
+        }
+        return new BufferedTransfers(transfersBuffer);
+    }
+
     /**
      * Helper method for cleanliness of in() method
+     * <p>
+     * The file is mapped into a single buffer, which limits it to 2 GB, and the
+     * mapping is released once the buffer is garbage collected.
      * 
      * @param path the path to the folder containing the wanted file
      * @return bytebuffer with the contents of the file
      * @throws IOException if the path is invalid
+     * @throws IllegalArgumentException if the file is larger than 2 GB
      */
     private static ByteBuffer map(Path path) throws IOException {
         try (FileChannel channel = FileChannel.open(path)) {
@@ -139,17 +159,59 @@ public record FileTimeTable(Path directory, List<String> stringTable, Stations s
     /**
      *
      * @param date the day
-     * @return the indexed connections on the active schedule of the given day
+     * @return the indexed connections on the active schedule of the given day, read from
+     *         their columnar file if the day has one compiled from its current files
      */
     @Override
     public Connections connectionsFor(LocalDate date) {
         Path daysPath = directory.resolve(date.toString());
+        Path columnsPath = daysPath.resolve(TimeTableCompiler.COLUMNS_FILE);
         Path connectionsPath = daysPath.resolve("connections.bin");
         Path succConnectionsPath = daysPath.resolve("connections-succ.bin");
         try {
+            if (isCompiled(date)) {
+                ByteBuffer columns = CompiledFileHeader.content(map(columnsPath),
+                        TimeTableCompiler.COLUMNS_MAGIC, TimeTableCompiler.COLUMNS_VERSION);
+                if (columns != null) return new ColumnarConnections(columns, map(succConnectionsPath));
+            }
             return new BufferedConnections(map(connectionsPath), map(succConnectionsPath));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @param date the day
+     * @return true if and only if the compiled files of the given day were compiled from
+     *         its current files
+     * @throws IOException on input/output error
+     */
+    private boolean isCompiled(LocalDate date) throws IOException {
+        return CompiledManifest.isUpToDate(
+                directory.resolve(date.toString()).resolve(TimeTableCompiler.MANIFEST_FILE),
+                CompiledManifest.dayFiles(directory, date));
+    }
+
+    /**
+     *
+     * @param date        the day
+     * @param connections the connections of the given day, as returned by
+     *                    {@link #connectionsFor(LocalDate)}
+     * @return the given connections, compiled, with their stations and trip index read
+     *         from the file written by the {@link TimeTableCompiler} if the day has a
+     *         valid one, compiled from its current files
+     */
+    @Override
+    public CompiledConnections compiledConnectionsFor(LocalDate date, Connections connections) {
+        Path compiledPath = directory.resolve(date.toString()).resolve(TimeTableCompiler.COMPILED_FILE);
+        try {
+            if (isCompiled(date)) {
+                CompiledConnections compiled = CompiledConnectionsFile.read(map(compiledPath), connections);
+                if (compiled != null) return compiled;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CompiledConnections(this, connections);
+    }
+}
@@ -0,0 +1,111 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.Platforms;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The timetable read from a directory of flattened data, which can be replaced, while it
+ * is in use, by the one of another directory.
+ * <p>
+ * The data of each directory forms a snapshot, which is loaded and validated in the
+ * background before replacing the current one in a single step. A computation that
+ * needs consistent data across several calls, like the one of a profile, takes the
+ * {@link #current()} snapshot once and uses it throughout. A replaced snapshot stays
+ * usable by the computations that hold it, and its files are unmapped once none does
+ * anymore. Reloads are done one after the other, in the order in which they are
+ * requested, so the last one requested gives the current snapshot.
+ */
+public final class ReloadableTimeTable {
+    private final AtomicReference<TimeTable> current;
+
+    /**
+     * The last requested reload, after which the next one is done
+     */
+    private CompletableFuture<TimeTable> lastReload = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructs a timetable with the data of the given directory
+     *
+     * @param directory the path to the folder containing the time data files
+     * @throws IOException on input/output error
+     * @throws IllegalArgumentException if the data of the directory is invalid
+     */
+    public ReloadableTimeTable(Path directory) throws IOException {
+        current = new AtomicReference<>(load(directory));
+    }
+
+    /**
+     * @return the current snapshot of the data, which never changes
+     */
+    public TimeTable current() {
+        return current.get();
+    }
+
+    /**
+     * Starts loading the data of the given directory on a virtual thread, once the
+     * previously requested reloads are done, and replaces the current snapshot with it
+     * if it is valid
+     *
+     * @param directory the path to the folder containing the time data files
+     * @return a future completed with the new snapshot once it has replaced the current
+     *         one, or completed exceptionally, without replacing it, if the data could
+     *         not be read or is invalid
+     */
+    public synchronized CompletableFuture<TimeTable> reload(Path directory) {
+        lastReload = lastReload.handleAsync((previous, e) -> {
+            try {
+                TimeTable snapshot = load(directory);
+                current.set(snapshot);
+                return snapshot;
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }, Thread::startVirtualThread);
+        return lastReload.copy();
+    }
+
+    /**
+     * @param directory the path to the folder containing the time data files
+     * @return the validated and cached data of the given directory
+     * @throws IOException on input/output error
+     * @throws IllegalArgumentException if the data is invalid
+     */
+    private static TimeTable load(Path directory) throws IOException {
+        TimeTable timeTable = FileTimeTable.in(directory);
+        validate(timeTable);
+        return new CachedTimeTable(timeTable);
+    }
+
+    /**
+     * Checks that the given timetable has stations, and that all its platforms and both
+     * ends of all its transfers refer to them
+     *
+     * @param timeTable the timetable
+     * @throws IllegalArgumentException if it does not
+     */
+    private static void validate(TimeTable timeTable) {
+        int stationCount = timeTable.stations().size();
+        Preconditions.checkArgument(stationCount > 0);
+        Platforms platforms = timeTable.platforms();
+        for (int i = 0; i < platforms.size(); i++) {
+            int stationId = platforms.stationId(i);
+            Preconditions.checkArgument(0 <= stationId && stationId < stationCount);
+        }
+        Transfers transfers = timeTable.transfers();
+        for (int i = 0; i < transfers.size(); i++) {
+            int depStationId = transfers.depStationId(i);
+            int arrStationId = transfers.arrStationId(i);
+            Preconditions.checkArgument(0 <= depStationId && depStationId < stationCount);
+            Preconditions.checkArgument(0 <= arrStationId && arrStationId < stationCount);
+        }
+    }
+}
@@ -43,6 +43,13 @@ public final class Structure {
 
     private final Field[] fields;
 
+    /**
+     * The number of bytes of an element, and the offset of each field in an element,
+     * computed once at construction
+     */
+    private final int totalSize;
+    private final int[] fieldOffsets;
+
     /**
      * Constructor for structure
      * 
@@ -55,6 +62,14 @@ public final class Structure {
             Preconditions.checkArgument(fields[i - 1].index < fields[i].index);
         }
         this.fields = fields.clone();
+
+        this.fieldOffsets = new int[fields.length];
+        int size = 0;
+        for (int i = 0; i < fields.length; i++) {
+            fieldOffsets[i] = size;
+            size += size(fields[i]);
+        }
+        this.totalSize = size;
     }
 
     /**
@@ -63,11 +78,7 @@ public final class Structure {
      * @return number of bytes in the structure
      */
     public int totalSize() {
-        int size = 0;
-        for (Field field : fields) {
-            size += size(field);
-        }
-        return size;
+        return totalSize;
     }
 
     /**
@@ -82,21 +93,20 @@ public final class Structure {
      */
     public int offset(int fieldIndex, int elementIndex) {
         Preconditions.checkIndex(fields.length, fieldIndex);
-        return (elementIndex * totalSize()) + fieldOffset(fieldIndex);
+        return (elementIndex * totalSize) + fieldOffsets[fieldIndex];
     }
 
     /**
-     * Helper method to calculate the offset
+     * Returns the offset of the index field within an element
      * 
      * @param fieldIndex the index field
      * @return the offset of the field without the element
+     * @throws IndexOutOfBoundsException if the given field index is negative or
+     *                                   greater than the length of the list
      */
-    private int fieldOffset(int fieldIndex) {
-        int computedOffset = 0;
-        for (int i = 0; i < fieldIndex; i++) {
-            computedOffset += size(fields[i]);
-        }
-        return computedOffset;
+    int fieldOffset(int fieldIndex) {
+        Preconditions.checkIndex(fields.length, fieldIndex);
+        return fieldOffsets[fieldIndex];
     }
 
     /**
@@ -15,6 +15,12 @@ public class StructuredBuffer {
     private final Structure structure;
     private final ByteBuffer buffer;
 
+    /**
+     * The number of bytes of an element, and the number of elements
+     */
+    private final int stride;
+    private final int size;
+
     /**
      * Constructor a structured array whose elements have the given structure, and
      * whose bytes are stored in the "array" buffer
@@ -29,7 +35,8 @@ public class StructuredBuffer {
         Preconditions.checkArgument((buffer.capacity() % structure.totalSize()) == 0);
         this.structure = structure;
         this.buffer = buffer;
-
+        this.stride = structure.totalSize();
+        this.size = buffer.capacity() / stride;
     }
 
     /**
@@ -38,7 +45,7 @@ public class StructuredBuffer {
      * @return the number of elements in the array
      */
     public int size() {
-        return buffer.capacity() / structure.totalSize();
+        return size;
     }
 
     /**
@@ -76,4 +83,53 @@ public class StructuredBuffer {
         int offset = structure.offset(fieldIndex, elementIndex);
         return buffer.getInt(offset);
     }
+
+    /**
+     * Returns the offset of the index field within an element, to be given to the
+     * unchecked accessors
+     * 
+     * @param fieldIndex the index field
+     * @return the offset of the index field within an element
+     * @throws IndexOutOfBoundsException if the given field index is invalid
+     */
+    int fieldOffset(int fieldIndex) {
+        return structure.fieldOffset(fieldIndex);
+    }
+
+    /**
+     * Returns the U8 integer at the given field offset of the index element, without
+     * checking the field, for callers that obtained the offset from
+     * {@link #fieldOffset(int)} and checked the element index
+     * 
+     * @param fieldOffset  the offset of the field within an element
+     * @param elementIndex the index element
+     * @return the U8 integer
+     */
+    int getU8At(int fieldOffset, int elementIndex) {
+        return Byte.toUnsignedInt(buffer.get(elementIndex * stride + fieldOffset));
+    }
+
+    /**
+     * Returns the U16 integer at the given field offset of the index element, without
+     * checking the field (see {@link #getU8At(int, int)})
+     * 
+     * @param fieldOffset  the offset of the field within an element
+     * @param elementIndex the index element
+     * @return the U16 integer
+     */
+    int getU16At(int fieldOffset, int elementIndex) {
+        return Short.toUnsignedInt(buffer.getShort(elementIndex * stride + fieldOffset));
+    }
+
+    /**
+     * Returns the S32 integer at the given field offset of the index element, without
+     * checking the field (see {@link #getU8At(int, int)})
+     * 
+     * @param fieldOffset  the offset of the field within an element
+     * @param elementIndex the index element
+     * @return the S32 integer
+     */
+    int getS32At(int fieldOffset, int elementIndex) {
+        return buffer.getInt(elementIndex * stride + fieldOffset);
+    }
 }
@@ -0,0 +1,140 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.timetable.CompiledConnections;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A command-line tool adding, to a timetable directory and to each of its days, the files
+ * that let {@link FileTimeTable} start with its changes and connections ready to use: the
+ * changes indexed by arrival and departure station (see {@link CompiledTransfersFile}),
+ * the connections stored by column (see {@link ColumnarConnections}), and their stations
+ * and trip index computed in advance (see {@link CompiledConnectionsFile}).
+ * <p>
+ * The original files are kept, so the directory can still be read without the compiled
+ * ones, and compiling it again replaces them. The compiled files of the directory and of
+ * each day are followed by a {@link CompiledManifest} recording the sizes and
+ * modification times of the files they were compiled from, so that they are ignored once
+ * these are replaced.
+ */
+public final class TimeTableCompiler {
+    private TimeTableCompiler() {
+    }
+
+    /**
+     * The name of the file written in the timetable directory
+     */
+    static final String TRANSFERS_FILE = "transfers-compiled.bin";
+
+    /**
+     * The names of the files written in the directory of each day, the manifest being
+     * also written in the timetable directory
+     */
+    static final String COLUMNS_FILE = "connections-columns.bin";
+    static final String COMPILED_FILE = "connections-compiled.bin";
+    static final String MANIFEST_FILE = "compiled-manifest.bin";
+
+    /**
+     * The magic number and the version of the format of the columnar files, which start
+     * with a {@link CompiledFileHeader}
+     */
+    static final int COLUMNS_MAGIC = 0x5243434C;
+    static final int COLUMNS_VERSION = 2;
+
+    /**
+     * Compiles the timetable whose directory is given as only argument
+     *
+     * @param args the arguments of the command line
+     * @throws IOException on input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: TimeTableCompiler <timetable directory>");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        int days = compile(directory);
+        System.out.println(days + " days compiled in " + directory);
+    }
+
+    /**
+     * Compiles the changes and every day of the timetable of the given directory
+     *
+     * @param directory the path to the folder containing the time data files
+     * @return the number of days compiled
+     * @throws IOException on input/output error
+     */
+    public static int compile(Path directory) throws IOException {
+        TimeTable timeTable = FileTimeTable.in(directory);
+        write(directory.resolve(TRANSFERS_FILE), CompiledTransfersFile.write(timeTable.transfers()));
+        write(directory.resolve(MANIFEST_FILE),
+                CompiledManifest.write(CompiledManifest.timeTableFiles(directory)));
+        int days = 0;
+        try (DirectoryStream<Path> dayDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dayDirectory : dayDirectories) {
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(dayDirectory.getFileName().toString());
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                Connections connections = timeTable.connectionsFor(date);
+                write(dayDirectory.resolve(COLUMNS_FILE), columns(connections));
+                CompiledConnections compiled = new CompiledConnections(timeTable, connections);
+                write(dayDirectory.resolve(COMPILED_FILE), CompiledConnectionsFile.write(compiled));
+                write(dayDirectory.resolve(MANIFEST_FILE),
+                        CompiledManifest.write(CompiledManifest.dayFiles(directory, date)));
+                days++;
+            }
+        }
+        return days;
+    }
+
+    /**
+     * @param connections the connections of a day
+     * @return the content of the columnar file of the given connections
+     */
+    static ByteBuffer columns(Connections connections) {
+        int size = connections.size();
+        ByteBuffer buffer = ByteBuffer.allocate(
+                CompiledFileHeader.BYTES + size * (4 * Short.BYTES + Integer.BYTES));
+        buffer.position(CompiledFileHeader.BYTES);
+        for (int i = 0; i < size; i++) buffer.putShort((short) connections.depStopId(i));
+        for (int i = 0; i < size; i++) buffer.putShort((short) connections.depMins(i));
+        for (int i = 0; i < size; i++) buffer.putShort((short) connections.arrStopId(i));
+        for (int i = 0; i < size; i++) buffer.putShort((short) connections.arrMins(i));
+        for (int i = 0; i < size; i++) {
+            buffer.putInt((connections.tripId(i) << 8) | connections.tripPos(i));
+        }
+        return CompiledFileHeader.write(buffer, COLUMNS_MAGIC, COLUMNS_VERSION);
+    }
+
+    /**
+     * Writes the given content to the given file, replacing it only once it is complete
+     *
+     * @param path    the path of the file
+     * @param content the content of the file
+     * @throws IOException on input/output error
+     */
+    private static void write(Path path, ByteBuffer content) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
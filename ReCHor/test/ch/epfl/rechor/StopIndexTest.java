@@ -10,11 +10,17 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class StopIndexTest {
 
@@ -83,4 +89,108 @@ public class StopIndexTest {
         }
         return list;
     }
+
+    /**
+     * The search of stopsMatching, by matching every name and alias against the regular
+     * expressions of the subqueries
+     */
+    private static List<String> fullScanMatching(List<String> stopNames, Map<String, String> altNames,
+                                                 String query, int maxResults) {
+        int flags = query.chars().anyMatch(Character::isUpperCase)
+                ? Pattern.UNICODE_CASE
+                : Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE;
+        Pattern[] subREs = Arrays.stream(query.trim().split("\\s+"))
+                .map(sub -> sub.chars().mapToObj(c -> {
+                    char ch = (flags & Pattern.CASE_INSENSITIVE) != 0 ? Character.toLowerCase((char) c) : (char) c;
+                    return StopIndex.ACCENT_EQUIV.getOrDefault(ch, Pattern.quote(Character.toString(ch)));
+                }).collect(Collectors.joining()))
+                .map(regex -> Pattern.compile(regex, flags))
+                .toArray(Pattern[]::new);
+        return Stream.concat(
+                        stopNames.stream().map(name -> Map.entry(name, name)),
+                        altNames.entrySet().stream().map(e -> Map.entry(e.getValue(), e.getKey())))
+                .filter(e -> Arrays.stream(subREs).allMatch(re -> re.matcher(e.getKey()).find()))
+                .collect(Collectors.toMap(Map.Entry::getValue, e -> score(e.getKey(), subREs), Math::max))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(maxResults)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static int score(String name, Pattern[] subREs) {
+        int score = 0;
+        for (Pattern re : subREs) {
+            Matcher m = re.matcher(name);
+            if (m.find()) {
+                int multiplier = 1;
+                if (m.start() == 0 || !Character.isLetter(name.charAt(m.start() - 1))) multiplier *= 4;
+                if (m.end() == name.length() || !Character.isLetter(name.charAt(m.end()))) multiplier *= 2;
+                score += (m.end() - m.start()) * 100 / name.length() * multiplier;
+            }
+        }
+        return score;
+    }
+
+    private static final String NAME_CHARS = "aAàÀeEéÉèiIîoOöuUücCçnNñlLrRsStTvVyÿßẞſ  -,.'\\\uD83D\uDE80";
+
+    private static String randomString(Random rng, String chars, int maxLength) {
+        var b = new StringBuilder();
+        var length = 1 + rng.nextInt(maxLength);
+        for (int i = 0; i < length; i++) b.append(chars.charAt(rng.nextInt(chars.length())));
+        return b.toString();
+    }
+
+    @Test
+    void stopsMatchingIsIdenticalToAFullScan() {
+        var rng = new Random(2025);
+        var stopNames = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) stopNames.add(randomString(rng, NAME_CHARS, 20));
+        stopNames.addAll(List.of("Mézières FR, village", "Mézières VD, village",
+                "Mézery-près-Donneloye, village", "Charleville-Mézières", "Lausanne", "Renens VD, gare"));
+        var altNames = new HashMap<String, String>();
+        for (int i = 0; i < 300; i++) altNames.put(stopNames.get(rng.nextInt(stopNames.size())), randomString(rng, NAME_CHARS, 12));
+        altNames.put("Lausanne", "Losana");
+        var stopIndex = new StopIndex(stopNames, altNames);
+
+        var queries = new ArrayList<>(List.of("", " ", "mez vil", "Mez", "MÉZ", "losa", "renens gare",
+                "e", "é", "É", "c", "ç", "ÿ", "Ÿ", "-", "vd, v", "a a a", "ß", "ẞ", "sß", "ſ", "\\E", "\uD83D\uDE80"));
+        for (int i = 0; i < 2000; i++) {
+            var name = stopNames.get(rng.nextInt(stopNames.size()));
+            var start = rng.nextInt(name.length());
+            var query = name.substring(start, start + 1 + rng.nextInt(Math.min(6, name.length() - start)));
+            queries.add(rng.nextBoolean() ? query.toLowerCase() : query);
+            queries.add(randomString(rng, NAME_CHARS, 4));
+        }
+        for (var query : queries) {
+            assertEquals(fullScanMatching(stopNames, Map.copyOf(altNames), query, 30),
+                    stopIndex.stopsMatching(query, 30), query);
+        }
+    }
+
+    @Test
+    void sessionResultsAreTheOnesOfStopsMatching() {
+        var rng = new Random(2026);
+        var stopNames = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) stopNames.add(randomString(rng, NAME_CHARS, 20));
+        var altNames = new HashMap<String, String>();
+        for (int i = 0; i < 200; i++) altNames.put(stopNames.get(rng.nextInt(stopNames.size())), randomString(rng, NAME_CHARS, 12));
+        var stopIndex = new StopIndex(stopNames, altNames);
+        var session = stopIndex.session();
+
+        // Types names and random characters, and sometimes deletes some of them
+        var query = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            var r = rng.nextInt(10);
+            if (r < 2 && !query.isEmpty()) query.setLength(rng.nextInt(query.length()));
+            else if (r < 4) query.append(NAME_CHARS.charAt(rng.nextInt(NAME_CHARS.length())));
+            else {
+                var name = stopNames.get(rng.nextInt(stopNames.size()));
+                query.append(name.charAt(rng.nextInt(name.length())));
+            }
+            if (query.length() > 12) query.setLength(0);
+            assertEquals(stopIndex.stopsMatching(query.toString(), 30),
+                    session.stopsMatching(query.toString(), 30), query.toString());
+        }
+    }
 }
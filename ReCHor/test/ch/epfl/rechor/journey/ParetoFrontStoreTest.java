@@ -0,0 +1,72 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParetoFrontStoreTest {
+
+    private static List<Long> tuples(ParetoFront front) {
+        var list = new ArrayList<Long>();
+        front.forEach(list::add);
+        return list;
+    }
+
+    @Test
+    void paretoFrontStoreWorksLikeParetoFrontBuilders() {
+        var rng = new Random(2025);
+        var stationCount = 20;
+        var tripCount = 10;
+        var store = new ParetoFrontStore(stationCount, tripCount);
+        var builders = new ParetoFront.Builder[stationCount + tripCount];
+        for (var i = 0; i < builders.length; i += 1) builders[i] = new ParetoFront.Builder();
+
+        for (var i = 0; i < 5000; i += 1) {
+            var entry = rng.nextInt(builders.length);
+            var arrMins = rng.nextInt(1000, 1200);
+            var t = PackedCriteria.withDepMins(
+                    PackedCriteria.pack(arrMins, rng.nextInt(8), rng.nextInt()),
+                    rng.nextInt(800, arrMins));
+            store.add(entry, t);
+            builders[entry].add(t);
+        }
+
+        for (var i = 0; i < tripCount; i += 1) {
+            var fromStore = new ParetoFront.Builder();
+            store.addAllTo(store.tripEntry(i), fromStore);
+            assertEquals(tuples(builders[stationCount + i].build()), tuples(fromStore.build()));
+        }
+        var stationFronts = store.freezeStations();
+        assertEquals(stationCount, stationFronts.size());
+        for (var i = 0; i < stationCount; i += 1)
+            assertEquals(tuples(builders[i].build()), tuples(stationFronts.get(i)));
+    }
+
+    @Test
+    void paretoFrontStoreFrozenFrontsDoNotChangeWithTheStore() {
+        var store = new ParetoFrontStore(2, 1);
+        store.add(0, PackedCriteria.pack(10, 1, 0));
+        var fronts = store.freezeStations();
+        store.add(1, PackedCriteria.pack(10, 1, 0));
+        assertEquals(0, fronts.get(1).size());
+
+        store.reset(3);
+        assertTrue(store.isEmpty(0));
+        store.add(0, PackedCriteria.pack(5, 0, 0));
+        store.add(store.tripEntry(2), PackedCriteria.pack(20, 0, 0));
+        assertEquals(List.of(PackedCriteria.pack(10, 1, 0)), tuples(fronts.get(0)));
+        assertEquals(0, fronts.get(1).size());
+    }
+
+    @Test
+    void paretoFrontStoreThrowsOnInvalidEntry() {
+        var store = new ParetoFrontStore(2, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> store.add(-1, 0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.add(3, 0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.isEmpty(3));
+    }
+}
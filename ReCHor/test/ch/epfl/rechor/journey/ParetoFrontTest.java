@@ -236,6 +236,47 @@ class ParetoFrontTest {
         }
     }
 
+    @Test
+    void paretoFrontBuilderAddWithoutDepMinsWorksLikeNaiveParetoFrontBuilder() {
+        var rng = new Random(2026);
+
+        var naiveParetoFrontB = new NaiveParetoFrontBuilder();
+        var paretoFrontB = new ParetoFront.Builder();
+
+        for (int i = 0; i < 1000; i += 1) {
+            if (rng.nextInt(100) == 0) {
+                naiveParetoFrontB.clear();
+                paretoFrontB.clear();
+            }
+
+            var t = PackedCriteria.pack(rng.nextInt(1000, 1100), rng.nextInt(16), rng.nextInt());
+            naiveParetoFrontB.add(t);
+            paretoFrontB.add(t);
+
+            assertEquals(naiveParetoFrontB.toSortedList(), toSortedList(paretoFrontB));
+        }
+    }
+
+    @Test
+    void paretoFrontBuilderCopyOfEmptyBuilderCanAdd() {
+        var b = new ParetoFront.Builder(new ParetoFront.Builder());
+        b.add(PackedCriteria.pack(1, 2, 3));
+        b.add(PackedCriteria.pack(2, 1, 3));
+        assertEquals(2, b.build().size());
+    }
+
+    @Test
+    void paretoFrontBuilderAddAllIgnoresClearedTuples() {
+        var b1 = new ParetoFront.Builder();
+        for (var i = 0; i < 10; i += 1)
+            b1.add(PackedCriteria.pack(10 + i, 10 - i, i));
+        b1.clear();
+        b1.add(PackedCriteria.pack(50, 50, 0));
+
+        var b2 = new ParetoFront.Builder().addAll(b1);
+        assertEquals(1, b2.build().size());
+    }
+
     private static List<Long> toSortedList(ParetoFront.Builder paretoFrontB) {
         var sortedTuples = new ArrayList<Long>();
         paretoFrontB.forEach(t -> sortedTuples.add(t));
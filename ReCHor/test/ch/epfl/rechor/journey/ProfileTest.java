@@ -297,6 +297,11 @@ class ProfileTest {
                     throw new IndexOutOfBoundsException();
                 }
 
+                @Override
+                public int arrStationId(int id) {
+                    throw new IndexOutOfBoundsException();
+                }
+
                 @Override
                 public int minutesBetween(int depStationId, int arrStationId) {
                     throw new IndexOutOfBoundsException();
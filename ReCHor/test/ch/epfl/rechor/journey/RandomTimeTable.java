@@ -0,0 +1,302 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A small random timetable held in memory, with the same layout as the flattened one
+ * (connections sorted by decreasing departure time, transfers sorted by arrival
+ * station), used to compare routers without timetable files
+ */
+final class RandomTimeTable implements TimeTable {
+    private final int stationCount;
+    private final int[][] transfers;
+    private final int[] arrivingAt;
+    private final int[] departingFrom;
+    private final int[] departingTransferIds;
+    private final int[][] connections;
+    private final int[] nextConnection;
+    private final int tripCount;
+
+    RandomTimeTable(long seed, int stationCount, int tripCount) {
+        var rng = new Random(seed);
+        this.stationCount = stationCount;
+        this.tripCount = tripCount;
+
+        var transferList = new ArrayList<int[]>();
+        for (var s = 0; s < stationCount; s += 1) transferList.add(new int[]{s, s, 2 + rng.nextInt(4)});
+        for (var k = 0; k < stationCount; k += 1) {
+            var s1 = rng.nextInt(stationCount);
+            var s2 = rng.nextInt(stationCount);
+            if (s1 == s2 || transferList.stream().anyMatch(t -> t[0] == s1 && t[1] == s2)) continue;
+            var minutes = 3 + rng.nextInt(10);
+            transferList.add(new int[]{s1, s2, minutes});
+            transferList.add(new int[]{s2, s1, minutes});
+        }
+        transferList.sort(Comparator.<int[]>comparingInt(t -> t[1]).thenComparingInt(t -> t[0]));
+        this.transfers = transferList.toArray(int[][]::new);
+        this.arrivingAt = new int[stationCount];
+        var start = 0;
+        for (var i = 1; i <= transfers.length; i += 1) {
+            if (i == transfers.length || transfers[i][1] != transfers[start][1]) {
+                arrivingAt[transfers[start][1]] = PackedRange.pack(start, i);
+                start = i;
+            }
+        }
+        this.departingFrom = new int[stationCount];
+        this.departingTransferIds = new int[transfers.length];
+        var position = 0;
+        for (var s = 0; s < stationCount; s += 1) {
+            var first = position;
+            for (var i = 0; i < transfers.length; i += 1)
+                if (transfers[i][0] == s) departingTransferIds[position++] = i;
+            departingFrom[s] = PackedRange.pack(first, position);
+        }
+
+        // dep stop, dep mins, arr stop, arr mins, trip, position in trip
+        var connectionList = new ArrayList<int[]>();
+        for (var trip = 0; trip < tripCount; trip += 1) {
+            var time = rng.nextInt(1400);
+            var stop = rng.nextInt(stationCount);
+            var length = 2 + rng.nextInt(10);
+            for (var pos = 0; pos < length; pos += 1) {
+                var nextStop = rng.nextInt(stationCount);
+                var travel = 1 + rng.nextInt(15);
+                connectionList.add(new int[]{stop, time, nextStop, time + travel, trip, pos});
+                time += travel + rng.nextInt(3);
+                stop = nextStop;
+            }
+        }
+        var byTrip = connectionList.toArray(int[][]::new);
+        connectionList.sort(Comparator.<int[]>comparingInt(c -> -c[1])
+                .thenComparingInt(c -> -c[3])
+                .thenComparingInt(c -> c[4]));
+        this.connections = connectionList.toArray(int[][]::new);
+        var newId = new java.util.IdentityHashMap<int[], Integer>();
+        for (var i = 0; i < connections.length; i += 1) newId.put(connections[i], i);
+        this.nextConnection = new int[connections.length];
+        for (var i = 0; i < byTrip.length; i += 1) {
+            var last = i + 1 == byTrip.length || byTrip[i + 1][4] != byTrip[i][4];
+            var next = last ? i - byTrip[i][5] : i + 1;
+            nextConnection[newId.get(byTrip[i])] = newId.get(byTrip[next]);
+        }
+    }
+
+    @Override
+    public Stations stations() {
+        return new Stations() {
+            @Override
+            public String name(int id) {
+                return "station" + id;
+            }
+
+            @Override
+            public double longitude(int id) {
+                return 6 + id / 1000.0;
+            }
+
+            @Override
+            public double latitude(int id) {
+                return 46 + id / 1000.0;
+            }
+
+            @Override
+            public int size() {
+                return stationCount;
+            }
+        };
+    }
+
+    @Override
+    public StationAliases stationAliases() {
+        return new StationAliases() {
+            @Override
+            public String alias(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public String stationName(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+        };
+    }
+
+    @Override
+    public Platforms platforms() {
+        return new Platforms() {
+            @Override
+            public String name(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public int stationId(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+        };
+    }
+
+    @Override
+    public Routes routes() {
+        return new Routes() {
+            @Override
+            public Vehicle vehicle(int id) {
+                return Vehicle.ALL.get(id % Vehicle.ALL.size());
+            }
+
+            @Override
+            public String name(int id) {
+                return "route" + id;
+            }
+
+            @Override
+            public int size() {
+                return tripCount;
+            }
+        };
+    }
+
+    @Override
+    public Transfers transfers() {
+        return new Transfers() {
+            @Override
+            public int depStationId(int id) {
+                return transfers[id][0];
+            }
+
+            @Override
+            public int minutes(int id) {
+                return transfers[id][2];
+            }
+
+            @Override
+            public int arrivingAt(int stationId) {
+                return arrivingAt[stationId];
+            }
+
+            @Override
+            public int arrStationId(int id) {
+                return transfers[id][1];
+            }
+
+            @Override
+            public int departingFrom(int stationId) {
+                return departingFrom[stationId];
+            }
+
+            @Override
+            public int departingTransferId(int position) {
+                return departingTransferIds[position];
+            }
+
+            @Override
+            public int minutesBetween(int depStationId, int arrStationId) {
+                for (var t : transfers)
+                    if (t[0] == depStationId && t[1] == arrStationId) return t[2];
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public int size() {
+                return transfers.length;
+            }
+        };
+    }
+
+    @Override
+    public Trips tripsFor(LocalDate date) {
+        return new Trips() {
+            @Override
+            public int routeId(int id) {
+                return id;
+            }
+
+            @Override
+            public String destination(int id) {
+                return "destination" + id;
+            }
+
+            @Override
+            public int size() {
+                return tripCount;
+            }
+        };
+    }
+
+    @Override
+    public Connections connectionsFor(LocalDate date) {
+        return new Connections() {
+            @Override
+            public int depStopId(int id) {
+                return connections[id][0];
+            }
+
+            @Override
+            public int depMins(int id) {
+                return connections[id][1];
+            }
+
+            @Override
+            public int arrStopId(int id) {
+                return connections[id][2];
+            }
+
+            @Override
+            public int arrMins(int id) {
+                return connections[id][3];
+            }
+
+            @Override
+            public int tripId(int id) {
+                return connections[id][4];
+            }
+
+            @Override
+            public int tripPos(int id) {
+                return connections[id][5];
+            }
+
+            @Override
+            public int nextConnectionId(int id) {
+                return nextConnection[id];
+            }
+
+            @Override
+            public int size() {
+                return connections.length;
+            }
+        };
+    }
+
+    /**
+     * @param profile a profile
+     * @return the tuples of every station frontier of the profile, in order
+     */
+    static List<List<Long>> tuples(Profile profile) {
+        var all = new ArrayList<List<Long>>();
+        for (var front : profile.stationFront()) {
+            var tuples = new ArrayList<Long>();
+            front.forEach(tuples::add);
+            all.add(tuples);
+        }
+        return all;
+    }
+}
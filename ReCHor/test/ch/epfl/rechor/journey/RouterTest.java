@@ -14,9 +14,13 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.List;
+import java.util.Random;
 import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
 
 public class RouterTest {
 
@@ -163,4 +167,107 @@ public class RouterTest {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    void batchProfilesAreIdenticalToSingleProfiles() {
+        LocalDate date = LocalDate.of(2025, Month.MARCH, 18);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            TimeTable timeTable = new RandomTimeTable(2025, 50, 300);
+            Router router = new Router(timeTable);
+            List<Integer> destinations = new java.util.ArrayList<>();
+            for (int destination = 49; destination >= 0; destination -= 1) destinations.add(destination);
+
+            List<Profile> profiles = router.profiles(date, destinations, pool);
+            assertEquals(destinations.size(), profiles.size());
+            for (int i = 0; i < destinations.size(); i++) {
+                Profile expected = router.profile(date, destinations.get(i));
+                assertEquals((int) destinations.get(i), profiles.get(i).arrStationId());
+                assertEquals(RandomTimeTable.tuples(expected), RandomTimeTable.tuples(profiles.get(i)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void workspaceReusedOnAnotherTimeTableGivesTheSameProfiles() {
+        LocalDate date = LocalDate.of(2025, Month.MARCH, 18);
+        RouterWorkspace workspace = new RouterWorkspace();
+        for (long seed = 0; seed < 6; seed++) {
+            // Timetables with the same number of stations, but other transfers
+            Router router = new Router(new RandomTimeTable(seed, 60, 400));
+            for (int destination = 5; destination < 60; destination += 13) {
+                Profile expected = router.profile(date, destination);
+                Profile actual = router.profile(date, destination, workspace);
+                assertEquals(RandomTimeTable.tuples(expected), RandomTimeTable.tuples(actual));
+            }
+        }
+    }
+
+    @Test
+    void profileFromGivesTheJourneysOfTheFullProfileDepartingInTheWindow() {
+        LocalDate date = LocalDate.of(2025, Month.MARCH, 18);
+        Random random = new Random(2025);
+        for (long seed = 0; seed < 5; seed++) {
+            TimeTable timeTable = new RandomTimeTable(seed, 60, 400);
+            Router router = new Router(timeTable);
+            RouterWorkspace workspace = new RouterWorkspace();
+            for (int destination = 0; destination < 60; destination += 7) {
+                Profile full = router.profile(date, destination);
+                for (int query = 0; query < 20; query++) {
+                    int depStation = random.nextInt(60);
+                    int minDepMins = random.nextInt(-240, 1440);
+                    Profile bounded = router.profileFrom(date, destination, depStation, minDepMins, workspace);
+                    assertEquals(JourneyExtractor.handles(full, depStation, minDepMins, Integer.MAX_VALUE),
+                            JourneyExtractor.handles(bounded, depStation, minDepMins, Integer.MAX_VALUE));
+                }
+            }
+        }
+    }
+
+    @Test
+    void profileFromJourneysAreTheOnesOfTheFullProfile() {
+        LocalDate date = LocalDate.of(2025, Month.MARCH, 18);
+        TimeTable timeTable = new RandomTimeTable(1, 60, 400);
+        Router router = new Router(timeTable);
+        RouterWorkspace workspace = new RouterWorkspace();
+        Profile full = router.profile(date, 7);
+        for (int minDepMins = 300; minDepMins < 1200; minDepMins += 300) {
+            for (int station = 0; station < 60; station++) {
+                Profile bounded = router.profileFrom(date, 7, station, minDepMins, workspace);
+                List<JourneyExtractor.Handle> handles =
+                        JourneyExtractor.handles(bounded, station, minDepMins, Integer.MAX_VALUE);
+                assertEquals(JourneyExtractor.handles(full, station, minDepMins, Integer.MAX_VALUE), handles);
+                for (JourneyExtractor.Handle handle : handles) {
+                    assertEquals(JourneyExtractor.journey(full, station, handle),
+                            JourneyExtractor.journey(bounded, station, handle));
+                }
+            }
+        }
+    }
+
+    @Test
+    void journeyHandlesBuildTheJourneysInTheSameOrder() {
+        LocalDate date = LocalDate.of(2025, Month.MARCH, 18);
+        TimeTable timeTable = new RandomTimeTable(3, 60, 400);
+        Profile profile = new Router(timeTable).profile(date, 11);
+        // The journeys are built from the connections the profile was computed from
+        assertSame(profile.compiledConnections(), profile.compiledConnections());
+        for (int station = 0; station < 60; station++) {
+            List<Journey> journeys = JourneyExtractor.journeys(profile, station);
+            List<JourneyExtractor.Handle> handles = JourneyExtractor.handles(profile, station);
+            assertEquals(journeys.size(), handles.size());
+            for (int i = 0; i < handles.size(); i++) {
+                Journey journey = JourneyExtractor.journey(profile, station, handles.get(i));
+                assertEquals(journeys.get(i), journey);
+                assertEquals(date.atStartOfDay().plusMinutes(handles.get(i).depMins()), journey.depTime());
+                assertEquals(date.atStartOfDay().plusMinutes(handles.get(i).arrMins()), journey.arrTime());
+            }
+
+            List<JourneyExtractor.Handle> window = JourneyExtractor.handles(profile, station, 480, 600);
+            assertEquals(handles.stream().filter(h -> h.depMins() >= 480 && h.depMins() < 600).toList(), window);
+            assertTrue(JourneyExtractor.handles(profile, station, 600, 480).isEmpty());
+        }
+    }
 }
@@ -0,0 +1,276 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.journey.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiDayTimeTableTest {
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 18);
+
+    // Trips of each day, as (dep stop, dep mins, arr stop, arr mins) per connection
+    private static final Map<LocalDate, int[][][]> DAYS = Map.of(
+            DATE.minusDays(1), new int[][][]{
+                    {{0, 1325, 1, 1335}, {1, 1337, 2, 1345}},
+                    {{2, 1310, 0, 1318}, {0, 1321, 1, 1330}, {1, 1332, 2, 1350}},
+                    {{1, 600, 2, 620}}},
+            DATE, new int[][][]{
+                    {{0, 480, 1, 500}, {1, 505, 2, 520}},
+                    {{2, 1430, 0, 1445}, {0, 1446, 1, 1470}}},
+            DATE.plusDays(1), new int[][][]{
+                    {{1, 300, 2, 330}, {2, 335, 0, 355}, {0, 372, 1, 400}},
+                    {{0, 900, 1, 930}}});
+
+    @Test
+    void multiDayConnectionsKeepTheLateAndEarlyConnectionsOfTheNeighbouringDays() {
+        var tt = new MultiDayTimeTable(new DayTimeTable(DAYS));
+        var connections = tt.connectionsFor(DATE);
+        // 4 connections of the day, 4 of the previous evening, 2 of the next morning
+        assertEquals(10, connections.size());
+        assertEquals(2 + 3 + 2, tt.tripsFor(DATE).size());
+        for (int i = 1; i < connections.size(); i += 1)
+            assertTrue(connections.depMins(i - 1) >= connections.depMins(i));
+
+        var depMins = new ArrayList<Integer>();
+        for (int i = 0; i < connections.size(); i += 1) depMins.add(connections.depMins(i));
+        assertTrue(depMins.containsAll(List.of(1325 - 1440, 1337 - 1440, 1321 - 1440, 1332 - 1440)));
+        assertTrue(depMins.containsAll(List.of(300 + 1440, 335 + 1440)));
+        assertFalse(depMins.contains(1310 - 1440));
+        assertFalse(depMins.contains(372 + 1440));
+        assertFalse(depMins.contains(600 - 1440));
+    }
+
+    @Test
+    void multiDayConnectionsFormConsistentTrips() {
+        var tt = new MultiDayTimeTable(new DayTimeTable(DAYS));
+        var connections = tt.connectionsFor(DATE);
+        var trips = tt.tripsFor(DATE);
+        for (int i = 0; i < connections.size(); i += 1) {
+            var next = connections.nextConnectionId(i);
+            assertEquals(connections.tripId(i), connections.tripId(next));
+            if (connections.tripPos(next) != 0) {
+                assertEquals(connections.tripPos(i) + 1, connections.tripPos(next));
+                assertEquals(connections.arrStopId(i), connections.depStopId(next));
+            }
+            assertTrue(connections.tripId(i) < trips.size());
+        }
+        // The positions of the kept part of each trip start at 0
+        var compiled = new CompiledConnections(tt, connections);
+        for (int i = 0; i < compiled.size(); i += 1)
+            assertEquals(i, compiled.connectionIdAfter(compiled.connectionIdAfter(i, -compiled.tripPos(i)),
+                    compiled.tripPos(i)));
+        // The trips of the previous day follow the ones of the day, then come the ones of the next day
+        assertEquals("destination1", trips.destination(1));
+        assertEquals("", trips.destination(2));
+        assertEquals("destination2", trips.destination(4));
+        assertEquals("", trips.destination(5));
+        for (int i = 0; i < connections.size(); i += 1) {
+            var tripId = connections.tripId(i);
+            if (connections.depMins(i) < 0) assertTrue(tripId >= 2 && tripId < 5);
+            if (connections.depMins(i) >= 1440 + 240) assertTrue(tripId >= 5);
+        }
+    }
+
+    @Test
+    void multiDayConnectionsIgnoreDaysOutsideTheTimeTable() {
+        var tt = new MultiDayTimeTable(new DayTimeTable(Map.of(DATE, DAYS.get(DATE))));
+        var connections = tt.connectionsFor(DATE);
+        var day = new DayTimeTable(DAYS).connectionsFor(DATE);
+        assertEquals(day.size(), connections.size());
+        for (int i = 0; i < connections.size(); i += 1) {
+            assertEquals(day.depMins(i), connections.depMins(i));
+            assertEquals(day.tripId(i), connections.tripId(i));
+        }
+        assertEquals(2, tt.tripsFor(DATE).size());
+    }
+
+    @Test
+    void multiDayTimeTableMergesEachDayOnce() {
+        var cached = new CachedTimeTable(new DayTimeTable(DAYS));
+        var tt = new MultiDayTimeTable(cached);
+        var connections = tt.connectionsFor(DATE);
+        var trips = tt.tripsFor(DATE);
+        var compiled = tt.compiledConnectionsFor(DATE);
+        var reads = cached.hitCount() + cached.missCount();
+        assertEquals(3, cached.missCount());
+        assertSame(connections, tt.connectionsFor(DATE));
+        assertSame(trips, tt.tripsFor(DATE));
+        assertSame(compiled, tt.compiledConnectionsFor(DATE));
+        assertEquals(reads, cached.hitCount() + cached.missCount());
+        assertEquals(connections.size(), compiled.size());
+    }
+
+    @Test
+    void multiDayTimeTableOnlyIgnoresMissingDays() {
+        var days = new HashMap<>(DAYS) {
+            @Override
+            public int[][][] get(Object date) {
+                if (DATE.plusDays(1).equals(date))
+                    throw new UncheckedIOException(new IOException(date.toString()));
+                return super.get(date);
+            }
+        };
+        var tt = new MultiDayTimeTable(new DayTimeTable(days));
+        assertThrows(UncheckedIOException.class, () -> tt.connectionsFor(DATE));
+        assertThrows(UncheckedIOException.class, () -> tt.tripsFor(DATE));
+    }
+
+    private record DayTimeTable(Map<LocalDate, int[][][]> days) implements TimeTable {
+        @Override
+        public Stations stations() {
+            return new Stations() {
+                @Override
+                public String name(int id) {
+                    return "station" + id;
+                }
+
+                @Override
+                public double longitude(int id) {
+                    return 6;
+                }
+
+                @Override
+                public double latitude(int id) {
+                    return 46;
+                }
+
+                @Override
+                public int size() {
+                    return 3;
+                }
+            };
+        }
+
+        @Override
+        public StationAliases stationAliases() {
+            return null;
+        }
+
+        @Override
+        public Platforms platforms() {
+            return null;
+        }
+
+        @Override
+        public Routes routes() {
+            return new Routes() {
+                @Override
+                public Vehicle vehicle(int id) {
+                    return Vehicle.BUS;
+                }
+
+                @Override
+                public String name(int id) {
+                    return "route" + id;
+                }
+
+                @Override
+                public int size() {
+                    return 10;
+                }
+            };
+        }
+
+        @Override
+        public Transfers transfers() {
+            return null;
+        }
+
+        private int[][][] day(LocalDate date) {
+            if (!days.containsKey(date))
+                throw new UncheckedIOException(new NoSuchFileException(date.toString()));
+            return days.get(date);
+        }
+
+        @Override
+        public Trips tripsFor(LocalDate date) {
+            var trips = day(date);
+            return new Trips() {
+                @Override
+                public int routeId(int id) {
+                    return id;
+                }
+
+                @Override
+                public String destination(int id) {
+                    return id == 0 ? "" : "destination" + id;
+                }
+
+                @Override
+                public int size() {
+                    return trips.length;
+                }
+            };
+        }
+
+        @Override
+        public Connections connectionsFor(LocalDate date) {
+            var trips = day(date);
+            // dep stop, dep mins, arr stop, arr mins, trip, position, successor
+            var all = new ArrayList<int[]>();
+            for (int t = 0; t < trips.length; t += 1)
+                for (int p = 0; p < trips[t].length; p += 1) {
+                    var c = trips[t][p];
+                    all.add(new int[]{c[0], c[1], c[2], c[3], t, p, -1});
+                }
+            all.sort(Comparator.<int[]>comparingInt(c -> -c[1]));
+            for (var c : all)
+                for (int i = 0; i < all.size(); i += 1) {
+                    var o = all.get(i);
+                    var nextPos = (c[5] + 1) % trips[c[4]].length;
+                    if (o[4] == c[4] && o[5] == nextPos) c[6] = i;
+                }
+            return new Connections() {
+                @Override
+                public int depStopId(int id) {
+                    return all.get(id)[0];
+                }
+
+                @Override
+                public int depMins(int id) {
+                    return all.get(id)[1];
+                }
+
+                @Override
+                public int arrStopId(int id) {
+                    return all.get(id)[2];
+                }
+
+                @Override
+                public int arrMins(int id) {
+                    return all.get(id)[3];
+                }
+
+                @Override
+                public int tripId(int id) {
+                    return all.get(id)[4];
+                }
+
+                @Override
+                public int tripPos(int id) {
+                    return all.get(id)[5];
+                }
+
+                @Override
+                public int nextConnectionId(int id) {
+                    return all.get(id)[6];
+                }
+
+                @Override
+                public int size() {
+                    return all.size();
+                }
+            };
+        }
+    }
+}
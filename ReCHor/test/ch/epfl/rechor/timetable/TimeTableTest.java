@@ -3,7 +3,13 @@ package ch.epfl.rechor.timetable;
 import ch.epfl.rechor.journey.Vehicle;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,7 +52,183 @@ class TimeTableTest {
             assertEquals(FakePlatforms.fakePlatformName(i), tt.platformName(i + s.size()));
     }
 
-    private static final class FakeTimeTable implements TimeTable {
+    @Test
+    void timeTableCompiledConnectionsWork() {
+        var tt = new FakeTimeTable(new FakePlatforms(5), new FakeStations(10));
+        var date = LocalDate.of(2025, 3, 18);
+        var connections = tt.connectionsFor(date);
+        var compiled = tt.compiledConnectionsFor(date);
+        assertEquals(connections.size(), compiled.size());
+        for (int i = 0; i < connections.size(); i += 1) {
+            assertEquals(tt.stationId(connections.depStopId(i)), compiled.depStationId(i));
+            assertEquals(tt.stationId(connections.arrStopId(i)), compiled.arrStationId(i));
+            assertEquals(connections.depStopId(i), compiled.depStopId(i));
+            assertEquals(connections.depMins(i), compiled.depMins(i));
+            assertEquals(connections.arrMins(i), compiled.arrMins(i));
+            assertEquals(connections.tripId(i), compiled.tripId(i));
+            assertEquals(connections.tripPos(i), compiled.tripPos(i));
+            assertEquals(connections.nextConnectionId(i), compiled.nextConnectionId(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> compiled.depStationId(connections.size()));
+    }
+
+    @Test
+    void compiledConnectionsConnectionIdAfterFollowsTheTrip() {
+        var tt = new FakeTimeTable(new FakePlatforms(5), new FakeStations(10));
+        var connections = tt.compiledConnectionsFor(LocalDate.of(2025, 3, 18));
+        for (int i = 0; i < connections.size(); i += 1) {
+            var next = i;
+            for (int stops = 0; stops < 3 - connections.tripPos(i); stops += 1) {
+                assertEquals(next, connections.connectionIdAfter(i, stops));
+                next = connections.nextConnectionId(next);
+            }
+            var id = i;
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> connections.connectionIdAfter(id, 3 - connections.tripPos(id)));
+        }
+    }
+
+    @Test
+    void cachedTimeTableCompilesConnectionsOncePerDate() {
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)));
+        var date = LocalDate.of(2025, 3, 18);
+        var compiled = tt.compiledConnectionsFor(date);
+        assertSame(compiled, tt.compiledConnectionsFor(date));
+        var nextDayCompiled = tt.compiledConnectionsFor(date.plusDays(1));
+        assertNotSame(compiled, nextDayCompiled);
+        assertSame(nextDayCompiled, tt.compiledConnectionsFor(date.plusDays(1)));
+    }
+
+    @Test
+    void cachedTimeTableEvictsTheLeastRecentlyUsedDay() {
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)), 2);
+        var date = LocalDate.of(2025, 3, 18);
+        var connections = tt.connectionsFor(date);
+        tt.connectionsFor(date.plusDays(1));
+        assertSame(connections, tt.connectionsFor(date));
+        tt.connectionsFor(date.plusDays(2));
+        assertSame(connections, tt.connectionsFor(date));
+        assertEquals(3, tt.missCount());
+        assertEquals(2, tt.hitCount());
+        assertEquals(1, tt.evictionCount());
+        // The day before the last one was the least recently used
+        tt.connectionsFor(date.plusDays(1));
+        assertEquals(4, tt.missCount());
+    }
+
+    @Test
+    void cachedTimeTableMissingDayDoesNotEvictAnotherDay() {
+        var date = LocalDate.of(2025, 3, 18);
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)) {
+            @Override
+            public Connections connectionsFor(LocalDate day) {
+                if (day.equals(date.plusDays(2)))
+                    throw new UncheckedIOException(new NoSuchFileException(day.toString()));
+                return super.connectionsFor(day);
+            }
+        }, 2);
+        var connections = tt.connectionsFor(date);
+        var nextDayConnections = tt.connectionsFor(date.plusDays(1));
+        assertThrows(UncheckedIOException.class, () -> tt.connectionsFor(date.plusDays(2)));
+        assertThrows(UncheckedIOException.class, () -> tt.connectionsFor(date.plusDays(2)));
+        assertSame(connections, tt.connectionsFor(date));
+        assertSame(nextDayConnections, tt.connectionsFor(date.plusDays(1)));
+        assertEquals(0, tt.evictionCount());
+        // The missing day is asked for again each time
+        assertEquals(4, tt.missCount());
+    }
+
+    @Test
+    void cachedTimeTableLoadsADayOnceForConcurrentThreads() throws InterruptedException {
+        var loads = new AtomicInteger();
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)) {
+            @Override
+            public Connections connectionsFor(LocalDate date) {
+                loads.incrementAndGet();
+                return super.connectionsFor(date);
+            }
+        });
+        var date = LocalDate.of(2025, 3, 18);
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i += 1)
+            threads.add(Thread.startVirtualThread(() -> tt.compiledConnectionsFor(date)));
+        for (var thread : threads) thread.join();
+        assertEquals(1, loads.get());
+        assertEquals(1, tt.missCount());
+        assertEquals(7, tt.hitCount());
+    }
+
+    @Test
+    void cachedTimeTableCompilesTheConnectionsItLoaded() {
+        var loads = new AtomicInteger();
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)) {
+            @Override
+            public Connections connectionsFor(LocalDate date) {
+                loads.incrementAndGet();
+                return super.connectionsFor(date);
+            }
+        });
+        var date = LocalDate.of(2025, 3, 18);
+        var connections = tt.connectionsFor(date);
+        var compiled = tt.compiledConnectionsFor(date);
+        tt.tripsFor(date);
+        assertEquals(1, loads.get());
+        for (int i = 0; i < connections.size(); i += 1)
+            assertEquals(connections.depStopId(i), compiled.depStopId(i));
+        assertEquals(1, tt.missCount());
+        assertEquals(2, tt.hitCount());
+    }
+
+    @Test
+    void timeTablePrefetcherLoadsTheNextDaysInTheCache() {
+        var tt = new CachedTimeTable(new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)));
+        var date = LocalDate.of(2025, 3, 18);
+        try (var prefetcher = new TimeTablePrefetcher(tt, 2)) {
+            prefetcher.prefetch(date).join();
+        }
+        var misses = tt.missCount();
+        for (int i = 0; i <= 2; i += 1) {
+            tt.tripsFor(date.plusDays(i));
+            tt.compiledConnectionsFor(date.plusDays(i));
+        }
+        assertEquals(misses, tt.missCount());
+        assertEquals(3, tt.missCount());
+    }
+
+    @Test
+    void timeTablePrefetcherOnlyIgnoresMissingDays() {
+        var date = LocalDate.of(2025, 3, 18);
+        var tt = new FakeTimeTable(new FakePlatforms(5), new FakeStations(10)) {
+            @Override
+            public Trips tripsFor(LocalDate day) {
+                if (day.equals(date.plusDays(1)))
+                    throw new UncheckedIOException(new NoSuchFileException(day.toString()));
+                if (day.equals(date.plusDays(3)))
+                    throw new UncheckedIOException(new IOException(day.toString()));
+                return super.tripsFor(day);
+            }
+        };
+        try (var prefetcher = new TimeTablePrefetcher(tt, 2)) {
+            assertDoesNotThrow(() -> prefetcher.prefetch(date).join());
+            var e = assertThrows(CompletionException.class, () -> prefetcher.prefetch(date.plusDays(2)).join());
+            assertInstanceOf(UncheckedIOException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void cachedTimeTableSharesItsStops() {
+        var fake = new FakeTimeTable(new FakePlatforms(5), new FakeStations(10));
+        var tt = new CachedTimeTable(fake);
+        for (int i = 0; i < 15; i += 1) {
+            var stop = tt.stop(i);
+            assertEquals(fake.stop(i), stop);
+            assertSame(stop, tt.stop(i));
+            assertEquals(i < 10 ? null : fake.platformName(i), stop.platformName());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tt.stop(15));
+    }
+
+    private static class FakeTimeTable implements TimeTable {
         private final Platforms platforms;
         private final Stations stations;
 
@@ -103,6 +285,11 @@ class TimeTableTest {
                     return 0;
                 }
 
+                @Override
+                public int arrStationId(int id) {
+                    return 0;
+                }
+
                 @Override
                 public int minutesBetween(int depStationId, int arrStationId) {
                     return 0;
@@ -140,42 +327,42 @@ class TimeTableTest {
             return new Connections() {
                 @Override
                 public int depStopId(int id) {
-                    return 0;
+                    return id % 15;
                 }
 
                 @Override
                 public int depMins(int id) {
-                    return 0;
+                    return 1000 - id;
                 }
 
                 @Override
                 public int arrStopId(int id) {
-                    return 0;
+                    return (id + 7) % 15;
                 }
 
                 @Override
                 public int arrMins(int id) {
-                    return 0;
+                    return 1010 - id;
                 }
 
                 @Override
                 public int tripId(int id) {
-                    return 0;
+                    return id / 3;
                 }
 
                 @Override
                 public int tripPos(int id) {
-                    return 0;
+                    return id % 3;
                 }
 
                 @Override
                 public int nextConnectionId(int id) {
-                    return 0;
+                    return id % 3 == 2 ? id - 2 : id + 1;
                 }
 
                 @Override
                 public int size() {
-                    return 0;
+                    return 30;
                 }
             };
         }
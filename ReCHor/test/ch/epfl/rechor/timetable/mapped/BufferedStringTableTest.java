@@ -0,0 +1,39 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferedStringTableTest {
+    private static BufferedStringTable stringTable(String text) {
+        return new BufferedStringTable(
+                ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)).asReadOnlyBuffer());
+    }
+
+    @Test
+    void bufferedStringTableReadsAllLines() {
+        var table = stringTable("\nLausanne\nGruyères\r\nZürich HB\rBâle");
+        assertEquals(List.of("", "Lausanne", "Gruyères", "Zürich HB", "Bâle"), table);
+        assertEquals(List.of("", "Lausanne"), stringTable("\nLausanne\n"));
+        assertEquals(List.of("", ""), stringTable("\r\n\n"));
+        assertTrue(stringTable("").isEmpty());
+    }
+
+    @Test
+    void bufferedStringTableReturnsTheSameStringWhenCached() {
+        var table = stringTable("Lausanne\nRenens VD\n");
+        assertSame(table.get(1), table.get(1));
+        assertEquals("Lausanne", table.get(0));
+    }
+
+    @Test
+    void bufferedStringTableThrowsOnInvalidIndex() {
+        var table = stringTable("Lausanne\nRenens VD\n");
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(2));
+    }
+}
@@ -1,11 +1,13 @@
 package ch.epfl.rechor.timetable.mapped;
 
 import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.Transfers;
 import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -113,4 +115,90 @@ class BufferedTransfersTest {
             t.minutesBetween(STATIONS_COUNT, 0);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void bufferedTransfersArrStationIdWorks() {
+        var t = new BufferedTransfers(TRANSFERS);
+
+        var i = 0;
+        for (var arrStationId : ARR_STATIONS) {
+            for (var depStationId = 0; depStationId < STATIONS_COUNT; depStationId += 1) {
+                assertEquals(arrStationId, t.arrStationId(i++));
+            }
+        }
+    }
+
+    @Test
+    void bufferedTransfersDepartingFromWorks() {
+        var t = new BufferedTransfers(TRANSFERS);
+
+        for (var depStationId = 0; depStationId < STATIONS_COUNT; depStationId += 1) {
+            var departingFrom = t.departingFrom(depStationId);
+            assertEquals(STATIONS_COUNT, PackedRange.length(departingFrom));
+            var previousId = -1;
+            for (var p = PackedRange.startInclusive(departingFrom); p < PackedRange.endExclusive(departingFrom); p += 1) {
+                var id = t.departingTransferId(p);
+                assertEquals(depStationId, t.depStationId(id));
+                assertTrue(id > previousId);
+                previousId = id;
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> t.departingFrom(STATIONS_COUNT));
+        assertThrows(IndexOutOfBoundsException.class, () -> t.departingTransferId(STATIONS_COUNT * STATIONS_COUNT));
+    }
+
+    @Test
+    void transfersDefaultDepartingFromMatchesTheIndex() {
+        var t = new BufferedTransfers(TRANSFERS);
+        // The same changes, without their index by departure station
+        var unindexed = new Transfers() {
+            @Override
+            public int depStationId(int id) {
+                return t.depStationId(id);
+            }
+
+            @Override
+            public int minutes(int id) {
+                return t.minutes(id);
+            }
+
+            @Override
+            public int arrStationId(int id) {
+                return t.arrStationId(id);
+            }
+
+            @Override
+            public int arrivingAt(int stationId) {
+                return t.arrivingAt(stationId);
+            }
+
+            @Override
+            public int minutesBetween(int depStationId, int arrStationId) {
+                return t.minutesBetween(depStationId, arrStationId);
+            }
+
+            @Override
+            public int size() {
+                return t.size();
+            }
+        };
+
+        for (var stationId = 0; stationId < STATIONS_COUNT; stationId += 1)
+            assertEquals(t.departingFrom(stationId), unindexed.departingFrom(stationId));
+        for (var p = 0; p < t.size(); p += 1)
+            assertEquals(t.departingTransferId(p), unindexed.departingTransferId(p));
+        assertThrows(IndexOutOfBoundsException.class, () -> unindexed.departingFrom(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> unindexed.departingTransferId(t.size()));
+    }
+
+    @Test
+    void bufferedTransfersMinutesBetweenThrowsWithoutTransfer() {
+        var t = new BufferedTransfers(byteBuffer("00 00 00 01 02 00 02 00 01 05"));
+        assertEquals(2, t.minutesBetween(0, 1));
+        assertEquals(5, t.minutesBetween(2, 1));
+        assertThrows(NoSuchElementException.class, () -> t.minutesBetween(1, 1));
+        assertThrows(NoSuchElementException.class, () -> t.minutesBetween(0, 0));
+        assertThrows(NoSuchElementException.class, () -> t.minutesBetween(65536, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> t.minutesBetween(0, 2));
+    }
+}
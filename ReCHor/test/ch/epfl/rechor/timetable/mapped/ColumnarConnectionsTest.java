@@ -0,0 +1,68 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarConnectionsTest {
+    // dep stop, dep mins, arr stop, arr mins, trip and position
+    private static final int[][] CONNECTIONS = {
+            {12, 1200, 7, 1215, (3 << 8) | 1},
+            {65535, 480, 0, 510, (70000 << 8) | 255},
+            {7, 30, 12, 1439, 0}};
+    private static final int[] SUCCESSORS = {2, 1, 0};
+
+    private static ByteBuffer rows() {
+        var buffer = ByteBuffer.allocate(CONNECTIONS.length * 12);
+        for (var c : CONNECTIONS)
+            buffer.putShort((short) c[0]).putShort((short) c[1]).putShort((short) c[2])
+                    .putShort((short) c[3]).putInt(c[4]);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer columns() {
+        var buffer = ByteBuffer.allocate(CONNECTIONS.length * 12);
+        for (int f = 0; f < 4; f += 1)
+            for (var c : CONNECTIONS) buffer.putShort((short) c[f]);
+        for (var c : CONNECTIONS) buffer.putInt(c[4]);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer successors() {
+        var buffer = ByteBuffer.allocate(SUCCESSORS.length * 4);
+        for (var s : SUCCESSORS) buffer.putInt(s);
+        return buffer.flip();
+    }
+
+    @Test
+    void columnarConnectionsMatchBufferedConnections() {
+        var buffered = new BufferedConnections(rows(), successors());
+        var columnar = new ColumnarConnections(columns(), successors());
+        assertEquals(buffered.size(), columnar.size());
+        for (int i = 0; i < columnar.size(); i += 1) {
+            assertEquals(buffered.depStopId(i), columnar.depStopId(i));
+            assertEquals(buffered.depMins(i), columnar.depMins(i));
+            assertEquals(buffered.arrStopId(i), columnar.arrStopId(i));
+            assertEquals(buffered.arrMins(i), columnar.arrMins(i));
+            assertEquals(buffered.tripId(i), columnar.tripId(i));
+            assertEquals(buffered.tripPos(i), columnar.tripPos(i));
+            assertEquals(buffered.nextConnectionId(i), columnar.nextConnectionId(i));
+        }
+        assertEquals(70000, columnar.tripId(1));
+        assertEquals(255, columnar.tripPos(1));
+    }
+
+    @Test
+    void columnarConnectionsChecksItsArguments() {
+        assertEquals(0, new ColumnarConnections(ByteBuffer.allocate(0), ByteBuffer.allocate(0)).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarConnections(ByteBuffer.allocate(13), ByteBuffer.allocate(4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarConnections(columns(), ByteBuffer.allocate(4)));
+        var columnar = new ColumnarConnections(columns(), successors());
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.depMins(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.tripId(-1));
+    }
+}
@@ -0,0 +1,106 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReloadableTimeTableTest {
+    private static Path timeTable(Path directory, List<String> strings, String stations, String platforms)
+            throws IOException {
+        return timeTable(directory, strings, stations, platforms, "");
+    }
+
+    private static Path timeTable(Path directory, List<String> strings, String stations, String platforms,
+                                  String transfers) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("strings.txt"), strings, StandardCharsets.ISO_8859_1);
+        var hex = HexFormat.ofDelimiter(" ");
+        Files.write(directory.resolve("stations.bin"), hex.parseHex(stations));
+        Files.write(directory.resolve("platforms.bin"), hex.parseHex(platforms));
+        Files.write(directory.resolve("transfers.bin"), hex.parseHex(transfers));
+        for (var name : List.of("station-aliases.bin", "routes.bin"))
+            Files.write(directory.resolve(name), new byte[0]);
+        return directory;
+    }
+
+    private static Path oneStation(Path directory) throws IOException {
+        return timeTable(directory, List.of("Lausanne", "1"),
+                "00 00 04 5E 4A 3B 21 0A 1A 4F", "00 01 00 00");
+    }
+
+    private static Path twoStations(Path directory) throws IOException {
+        return timeTable(directory, List.of("Lausanne", "Renens VD"),
+                "00 00 04 5E 4A 3B 21 0A 1A 4F 00 01 04 5B 5E 72 21 0A 6C 83", "");
+    }
+
+    @Test
+    void reloadableTimeTableReplacesTheCurrentSnapshot(@TempDir Path dir) throws IOException {
+        var tt = new ReloadableTimeTable(oneStation(dir.resolve("a")));
+        var old = tt.current();
+        assertEquals(1, tt.current().stations().size());
+
+        var reloaded = tt.reload(twoStations(dir.resolve("b"))).join();
+        assertSame(reloaded, tt.current());
+        assertEquals(2, tt.current().stations().size());
+        assertEquals("Renens VD", tt.current().stations().name(1));
+        // The replaced snapshot can still be used
+        assertEquals(1, old.stations().size());
+        assertEquals("Lausanne", old.stations().name(0));
+    }
+
+    @Test
+    void reloadableTimeTableKeepsTheCurrentSnapshotIfTheNewOneIsInvalid(@TempDir Path dir)
+            throws IOException {
+        var tt = new ReloadableTimeTable(oneStation(dir.resolve("a")));
+        var old = tt.current();
+        // The platform refers to a station that does not exist
+        var invalid = timeTable(dir.resolve("b"), List.of("Lausanne", "1"),
+                "00 00 04 5E 4A 3B 21 0A 1A 4F", "00 01 00 03");
+
+        var e = assertThrows(CompletionException.class, () -> tt.reload(invalid).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertThrows(CompletionException.class, () -> tt.reload(dir.resolve("missing")).join());
+        assertSame(old, tt.current());
+    }
+
+    @Test
+    void reloadableTimeTableRejectsTransfersToUnknownStations(@TempDir Path dir) throws IOException {
+        var tt = new ReloadableTimeTable(oneStation(dir.resolve("a")));
+        var old = tt.current();
+        var valid = timeTable(dir.resolve("b"), List.of("Lausanne", "1"),
+                "00 00 04 5E 4A 3B 21 0A 1A 4F", "00 01 00 00", "00 00 00 00 03");
+        assertEquals(1, tt.reload(valid).join().transfers().size());
+        // The transfer arrives at a station that does not exist
+        var invalid = timeTable(dir.resolve("c"), List.of("Lausanne", "1"),
+                "00 00 04 5E 4A 3B 21 0A 1A 4F", "00 01 00 00", "00 00 00 03 05");
+
+        var current = tt.current();
+        var e = assertThrows(CompletionException.class, () -> tt.reload(invalid).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertSame(current, tt.current());
+        assertNotSame(old, current);
+    }
+
+    @Test
+    void reloadableTimeTableKeepsTheLastRequestedSnapshot(@TempDir Path dir) throws IOException {
+        var tt = new ReloadableTimeTable(oneStation(dir.resolve("a")));
+        var two = twoStations(dir.resolve("b"));
+        var one = oneStation(dir.resolve("c"));
+        for (int i = 0; i < 20; i++) {
+            var first = tt.reload(two);
+            var last = tt.reload(one);
+            assertEquals(2, first.join().stations().size());
+            assertSame(last.join(), tt.current());
+            assertEquals(1, tt.current().stations().size());
+        }
+    }
+}
@@ -84,4 +84,26 @@ class StructuredBufferTest {
         for (var i = 0; i < 10_000; i += 1)
             assertEquals(rng2.nextInt(), sBuffer.getS32(0, i));
     }
-}
\ No newline at end of file
+
+    @Test
+    void structuredBufferUncheckedAccessorsMatchCheckedOnes() {
+        var structure = new Structure(
+                field(0, Structure.FieldType.U8),
+                field(1, Structure.FieldType.U16),
+                field(2, Structure.FieldType.S32)
+        );
+        var rng = new Random(2025);
+        var buffer = new byte[7 * 100];
+        rng.nextBytes(buffer);
+        var sBuffer = new StructuredBuffer(structure, ByteBuffer.wrap(buffer));
+        assertEquals(0, sBuffer.fieldOffset(0));
+        assertEquals(1, sBuffer.fieldOffset(1));
+        assertEquals(3, sBuffer.fieldOffset(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> sBuffer.fieldOffset(3));
+        for (var i = 0; i < sBuffer.size(); i += 1) {
+            assertEquals(sBuffer.getU8(0, i), sBuffer.getU8At(sBuffer.fieldOffset(0), i));
+            assertEquals(sBuffer.getU16(1, i), sBuffer.getU16At(sBuffer.fieldOffset(1), i));
+            assertEquals(sBuffer.getS32(2, i), sBuffer.getS32At(sBuffer.fieldOffset(2), i));
+        }
+    }
+}
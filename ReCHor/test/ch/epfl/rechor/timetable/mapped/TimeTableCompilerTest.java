@@ -0,0 +1,205 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.CompiledConnections;
+import ch.epfl.rechor.timetable.Transfers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeTableCompilerTest {
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 18);
+
+    private static Path timeTable(Path directory) throws IOException {
+        var hex = HexFormat.ofDelimiter(" ");
+        Files.write(directory.resolve("strings.txt"), List.of("Lausanne", "Renens VD", "1"),
+                StandardCharsets.ISO_8859_1);
+        Files.write(directory.resolve("stations.bin"),
+                hex.parseHex("00 00 04 5E 4A 3B 21 0A 1A 4F 00 01 04 5B 5E 72 21 0A 6C 83"));
+        Files.write(directory.resolve("platforms.bin"), hex.parseHex("00 02 00 00"));
+        for (var name : List.of("station-aliases.bin", "routes.bin"))
+            Files.write(directory.resolve(name), new byte[0]);
+        // Changes within and between the two stations, sorted by arrival station
+        Files.write(directory.resolve("transfers.bin"), hex.parseHex(
+                "00 01 00 00 05 00 00 00 00 02 00 00 00 01 05 00 01 00 01 02"));
+        var day = Files.createDirectory(directory.resolve(DATE.toString()));
+        Files.write(day.resolve("trips.bin"), hex.parseHex("00 00 00 01 00 00 00 00"));
+        // Trip 1 from platform 2 of Lausanne, and trip 0 from Lausanne to Renens VD and back
+        Files.write(day.resolve("connections.bin"), hex.parseHex(
+                "00 02 02 58 00 01 02 62 00 00 01 00 " +
+                "00 01 01 F4 00 00 02 08 00 00 00 01 " +
+                "00 00 01 E0 00 01 01 EF 00 00 00 00"));
+        Files.write(day.resolve("connections-succ.bin"), hex.parseHex("00 00 00 00 00 00 00 02 00 00 00 01"));
+        return directory;
+    }
+
+    // Replaces the content of the given file, which is then modified after it was compiled
+    private static void replace(Path file, byte[] content) throws IOException {
+        var modified = Files.getLastModifiedTime(file).toInstant();
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(modified.plusSeconds(1)));
+    }
+
+    private static boolean isCompiled(Path directory) throws IOException {
+        var manifest = directory.resolve(DATE.toString()).resolve(TimeTableCompiler.MANIFEST_FILE);
+        return CompiledManifest.isUpToDate(manifest, CompiledManifest.dayFiles(directory, DATE));
+    }
+
+    private static void assertSameTransfers(Transfers expected, Transfers actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int s = 0; s < 2; s += 1) {
+            assertEquals(expected.arrivingAt(s), actual.arrivingAt(s));
+            assertEquals(expected.departingFrom(s), actual.departingFrom(s));
+            for (int o = 0; o < 2; o += 1)
+                assertEquals(expected.minutesBetween(s, o), actual.minutesBetween(s, o));
+        }
+        for (int i = 0; i < expected.size(); i += 1)
+            assertEquals(expected.departingTransferId(i), actual.departingTransferId(i));
+    }
+
+    private static void assertSameConnections(CompiledConnections expected, CompiledConnections actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i += 1) {
+            assertEquals(expected.depStopId(i), actual.depStopId(i));
+            assertEquals(expected.depStationId(i), actual.depStationId(i));
+            assertEquals(expected.arrStationId(i), actual.arrStationId(i));
+            assertEquals(expected.depMins(i), actual.depMins(i));
+            assertEquals(expected.arrMins(i), actual.arrMins(i));
+            assertEquals(expected.tripId(i), actual.tripId(i));
+            assertEquals(expected.tripPos(i), actual.tripPos(i));
+            assertEquals(expected.nextConnectionId(i), actual.nextConnectionId(i));
+            assertEquals(expected.connectionIdAfter(i, 0), actual.connectionIdAfter(i, 0));
+        }
+        assertEquals(1, actual.connectionIdAfter(2, 1));
+    }
+
+    @Test
+    void timeTableCompilerWritesFilesReadByFileTimeTable(@TempDir Path dir) throws IOException {
+        var tt = FileTimeTable.in(timeTable(dir));
+        var expected = new CompiledConnections(tt, tt.connectionsFor(DATE));
+
+        assertEquals(1, TimeTableCompiler.compile(dir));
+        var day = dir.resolve(DATE.toString());
+        assertTrue(Files.exists(day.resolve(TimeTableCompiler.COLUMNS_FILE)));
+        assertInstanceOf(ColumnarConnections.class, tt.connectionsFor(DATE));
+        assertSameConnections(expected, tt.compiledConnectionsFor(DATE));
+
+        assertTrue(isCompiled(dir));
+        var file = ByteBuffer.wrap(Files.readAllBytes(day.resolve(TimeTableCompiler.COMPILED_FILE)));
+        var read = CompiledConnectionsFile.read(file, tt.connectionsFor(DATE));
+        assertNotNull(read);
+        assertSameConnections(expected, read);
+    }
+
+    @Test
+    void compiledConnectionsFileIgnoresInvalidFiles(@TempDir Path dir) throws IOException {
+        var tt = FileTimeTable.in(timeTable(dir));
+        var connections = tt.connectionsFor(DATE);
+        var file = CompiledConnectionsFile.write(new CompiledConnections(tt, connections));
+        assertNotNull(CompiledConnectionsFile.read(file, connections));
+
+        var otherVersion = ByteBuffer.allocate(file.capacity()).put(file.duplicate()).flip();
+        otherVersion.putInt(Integer.BYTES, CompiledConnectionsFile.VERSION + 1);
+        assertNull(CompiledConnectionsFile.read(otherVersion, connections));
+        assertNull(CompiledConnectionsFile.read(ByteBuffer.allocate(3), connections));
+        var truncated = file.slice(0, file.capacity() - Integer.BYTES);
+        assertNull(CompiledConnectionsFile.read(truncated, connections));
+
+        // A compiled file replaced since the compilation is ignored by the timetable
+        TimeTableCompiler.compile(dir);
+        var corrupted = ByteBuffer.allocate(file.capacity()).put(file.duplicate()).flip();
+        corrupted.put(corrupted.capacity() - 1, (byte) 7);
+        var day = dir.resolve(DATE.toString());
+        replace(day.resolve(TimeTableCompiler.COMPILED_FILE), corrupted.array());
+        assertFalse(isCompiled(dir));
+        assertSameConnections(new CompiledConnections(tt, connections), tt.compiledConnectionsFor(DATE));
+    }
+
+    @Test
+    void fileTimeTableIgnoresColumnsCompiledFromOtherConnections(@TempDir Path dir) throws IOException {
+        var tt = FileTimeTable.in(timeTable(dir));
+        TimeTableCompiler.compile(dir);
+        assertInstanceOf(ColumnarConnections.class, tt.connectionsFor(DATE));
+
+        // The connections are replaced by others with the same size, departing one minute later
+        var day = dir.resolve(DATE.toString());
+        var connections = Files.readAllBytes(day.resolve("connections.bin"));
+        connections[3] += 1;
+        replace(day.resolve("connections.bin"), connections);
+        var refreshed = tt.connectionsFor(DATE);
+        assertInstanceOf(BufferedConnections.class, refreshed);
+        assertEquals(0x259, refreshed.depMins(0));
+    }
+
+    @Test
+    void fileTimeTableIgnoresCompiledFilesOfOtherConnections(@TempDir Path dir) throws IOException {
+        var tt = FileTimeTable.in(timeTable(dir));
+        TimeTableCompiler.compile(dir);
+
+        // Trip 0 now starts from Renens VD, with as many connections and trips
+        var day = dir.resolve(DATE.toString());
+        var connections = Files.readAllBytes(day.resolve("connections.bin"));
+        connections[25] = 1;
+        replace(day.resolve("connections.bin"), connections);
+        Files.delete(day.resolve(TimeTableCompiler.COLUMNS_FILE));
+        var refreshed = tt.connectionsFor(DATE);
+        assertSameConnections(new CompiledConnections(tt, refreshed), tt.compiledConnectionsFor(DATE));
+    }
+
+    @Test
+    void fileTimeTableReadsCompiledFilesWithoutTheConnectionsOfTheDay(@TempDir Path dir) throws IOException {
+        var copy = FileTimeTable.in(timeTable(Files.createDirectory(dir.resolve("copy"))));
+        var expected = new CompiledConnections(copy, copy.connectionsFor(DATE));
+        var compiledDir = timeTable(Files.createDirectory(dir.resolve("compiled")));
+        var tt = FileTimeTable.in(compiledDir);
+        TimeTableCompiler.compile(compiledDir);
+
+        // The row file is only checked through its attributes, not read
+        var day = compiledDir.resolve(DATE.toString());
+        var connectionsPath = day.resolve("connections.bin");
+        var modified = Files.getLastModifiedTime(connectionsPath);
+        Files.write(connectionsPath, new byte[(int) Files.size(connectionsPath)]);
+        Files.setLastModifiedTime(connectionsPath, modified);
+        assertInstanceOf(ColumnarConnections.class, tt.connectionsFor(DATE));
+        assertSameConnections(expected, tt.compiledConnectionsFor(DATE));
+
+        // A missing manifest makes the timetable read the row file
+        Files.delete(day.resolve(TimeTableCompiler.MANIFEST_FILE));
+        assertInstanceOf(BufferedConnections.class, tt.connectionsFor(DATE));
+    }
+
+    @Test
+    void fileTimeTableReadsTheCompiledTransfers(@TempDir Path dir) throws IOException {
+        var expected = FileTimeTable.in(timeTable(dir)).transfers();
+        var file = CompiledTransfersFile.write(expected);
+        var transfersBuffer = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("transfers.bin")));
+        assertSameTransfers(expected, CompiledTransfersFile.read(file, transfersBuffer));
+        assertNull(CompiledTransfersFile.read(file, transfersBuffer.slice(0, 15)));
+        assertNull(CompiledTransfersFile.read(file.slice(0, file.capacity() - 4), transfersBuffer));
+
+        TimeTableCompiler.compile(dir);
+        assertTrue(CompiledManifest.isUpToDate(dir.resolve(TimeTableCompiler.MANIFEST_FILE),
+                CompiledManifest.timeTableFiles(dir)));
+        assertSameTransfers(expected, FileTimeTable.in(dir).transfers());
+
+        // The changes are replaced by others, the change from Renens VD to Lausanne now
+        // departing from Lausanne, so the compiled indices are not used anymore
+        var transfers = Files.readAllBytes(dir.resolve("transfers.bin"));
+        transfers[1] = 0;
+        replace(dir.resolve("transfers.bin"), transfers);
+        var refreshed = FileTimeTable.in(dir).transfers();
+        assertEquals(PackedRange.pack(0, 3), refreshed.departingFrom(0));
+        assertEquals(PackedRange.pack(3, 4), refreshed.departingFrom(1));
+    }
+}